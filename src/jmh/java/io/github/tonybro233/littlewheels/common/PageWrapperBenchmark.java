@@ -0,0 +1,156 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PageWrapper#wrap(java.util.Collection, Pageable, PageWrapOptions)}的吞吐量与分配率 <br/>
+ * 运行：mvn -P jmh verify，默认参数见pom.xml中的jmh.args，可追加JMH参数，如
+ * -Djmh.args="-p size=100,10000 -prof gc -rf json -rff target/jmh-result.json"
+ *
+ * @author tony
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PageWrapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100", "10000", "1000000", "10000000"})
+    private int size;
+
+    /**
+     * none：不排序，numeric：数值，ignoreCase：字符串忽略大小写，
+     * toString：非Comparable属性按toString，three：三个排序属性
+     */
+    @Param({"none", "numeric", "ignoreCase", "toString", "three"})
+    private String sort;
+
+    /**
+     * first：第一页，deep：中间的页
+     */
+    @Param({"first", "deep"})
+    private String page;
+
+    @Param({"false", "true"})
+    private boolean extractKeys;
+
+    private List<Row> rows;
+
+    private Pageable pageable;
+
+    private PageWrapOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new Row(i, random.nextInt(1000), randomName(random), new Tag(random.nextInt(size))));
+        }
+        int pageNumber = "deep".equals(page) ? size / PAGE_SIZE / 2 : 0;
+        pageable = PageRequest.of(pageNumber, PAGE_SIZE, sort(sort));
+        options = PageWrapOptions.builder().extractKeys(extractKeys).build();
+    }
+
+    private static Sort sort(String shape) {
+        switch (shape) {
+            case "numeric":
+                return Sort.by(Sort.Order.desc("amount"));
+            case "ignoreCase":
+                return Sort.by(Sort.Order.asc("name").ignoreCase());
+            case "toString":
+                return Sort.by("tag");
+            case "three":
+                return Sort.by(Sort.Order.asc("name"), Sort.Order.desc("amount"), Sort.Order.asc("id"));
+            case "none":
+            default:
+                return Sort.unsorted();
+        }
+    }
+
+    private static String randomName(Random random) {
+        char[] chars = new char[8];
+        for (int i = 0; i < chars.length; i++) {
+            char c = (char) ('a' + random.nextInt(26));
+            chars[i] = random.nextBoolean() ? Character.toUpperCase(c) : c;
+        }
+        return new String(chars);
+    }
+
+    @Benchmark
+    public Page<Row> wrap() {
+        return PageWrapper.wrap(rows, pageable, options);
+    }
+
+    public static class Row {
+
+        private final int id;
+
+        private final long amount;
+
+        private final String name;
+
+        private final Tag tag;
+
+        Row(int id, long amount, String name, Tag tag) {
+            this.id = id;
+            this.amount = amount;
+            this.name = name;
+            this.tag = tag;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Tag getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * 非Comparable的属性
+     */
+    public static class Tag {
+
+        private final int value;
+
+        Tag(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "tag-" + value;
+        }
+    }
+
+}
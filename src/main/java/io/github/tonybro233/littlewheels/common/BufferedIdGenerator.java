@@ -0,0 +1,308 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 预先生成id的缓冲生成器。 <br/>
+ * 一个守护线程使用被包装的生成器批量生成id，写入环形缓冲；剩余数量不超过低水位时补充到填满。
+ * 取id只是一次CAS，不会遇到序列号用尽时等待下一毫秒的延迟；缓冲为空时直接调用被包装的生成器。 <br/>
+ * id来自同一个生成器，因此唯一；缓冲中的id保留生成时的时间，请求量小时会比直接生成的id旧，
+ * 同一线程取到的id也不保证递增，只是大致按时间排序，缓冲越大相差越多
+ *
+ * @author tony
+ */
+public final class BufferedIdGenerator implements IdGenerator, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferedIdGenerator.class);
+
+    /**
+     * 生产线程没有被唤醒时定期检查
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 每次补充的最大数量，补充的过程中消费者即可取到已经写入的部分
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    private final IdGenerator delegate;
+
+    private final long[] buffer;
+
+    private final int mask;
+
+    private final int lowWatermark;
+
+    /**
+     * 下一个可以取出的位置，消费者通过CAS推进
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 下一个写入的位置，只有生产线程写入
+     */
+    private volatile long tail;
+
+    private volatile boolean running = true;
+
+    private final Thread producer;
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long refills;
+
+    private volatile long produced;
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    private BufferedIdGenerator(IdGenerator delegate, int capacity, int lowWatermark) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("delegate can't be null");
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        if (lowWatermark < 0 || lowWatermark >= size) {
+            throw new IllegalArgumentException(
+                    String.format("low watermark can't be greater than %d or less than 0", size - 1));
+        }
+        this.delegate = delegate;
+        this.buffer = new long[size];
+        this.mask = size - 1;
+        this.lowWatermark = lowWatermark;
+        this.producer = new Thread(this::produce, "buffered-id-generator");
+        this.producer.setDaemon(true);
+    }
+
+    /**
+     * 创建并启动生成器，容量为65536，低水位为容量的一半
+     *
+     * @param delegate 被包装的生成器
+     */
+    public static BufferedIdGenerator start(IdGenerator delegate) {
+        return start(delegate, 1 << 16, 1 << 15);
+    }
+
+    /**
+     * 创建并启动生成器，不再使用时调用{@link #close()}停止生产线程
+     *
+     * @param delegate     被包装的生成器
+     * @param capacity     容量，向上取整为2的幂
+     * @param lowWatermark 剩余数量不超过该值时开始补充
+     */
+    public static BufferedIdGenerator start(IdGenerator delegate, int capacity, int lowWatermark) {
+        BufferedIdGenerator generator = new BufferedIdGenerator(delegate, capacity, lowWatermark);
+        generator.producer.start();
+        return generator;
+    }
+
+    @Override
+    public long nextId() {
+        for (; ; ) {
+            long h = head.get();
+            long remaining = tail - h;
+            if (remaining <= 0) {
+                fallbacks.increment();
+                LockSupport.unpark(producer);
+                return delegate.nextId();
+            }
+            long id = buffer[(int) h & mask];
+            // CAS成功说明读取期间该位置没有被覆盖：生产线程只有在head越过该位置后才会重新写入
+            if (head.compareAndSet(h, h + 1)) {
+                if (remaining - 1 == lowWatermark) {
+                    LockSupport.unpark(producer);
+                }
+                return id;
+            }
+        }
+    }
+
+    /**
+     * 一次CAS取出缓冲中的一段id，不足的部分直接生成
+     */
+    @Override
+    public void fill(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off > dst.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + dst.length);
+        }
+        int taken = 0;
+        while (taken == 0 && len > 0) {
+            long h = head.get();
+            long remaining = tail - h;
+            if (remaining <= 0) {
+                break;
+            }
+            int count = (int) Math.min(len, remaining);
+            int index = (int) h & mask;
+            int first = Math.min(count, buffer.length - index);
+            System.arraycopy(buffer, index, dst, off, first);
+            System.arraycopy(buffer, 0, dst, off + first, count - first);
+            if (head.compareAndSet(h, h + count)) {
+                taken = count;
+                if (remaining - count <= lowWatermark && remaining > lowWatermark) {
+                    LockSupport.unpark(producer);
+                }
+            }
+        }
+        if (taken < len) {
+            fallbacks.increment();
+            LockSupport.unpark(producer);
+            delegate.fill(dst, off + taken, len - taken);
+        }
+    }
+
+    private void produce() {
+        while (running) {
+            if (tail - head.get() > lowWatermark) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+                continue;
+            }
+            try {
+                refill();
+            } catch (RuntimeException ex) {
+                // 如时钟回拨，消费者直接生成时会收到同样的异常
+                LOGGER.error("Failed to refill id buffer", ex);
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 分段补充到填满，每段写入后立即发布
+     */
+    private void refill() {
+        refills++;
+        for (; ; ) {
+            long t = tail;
+            long free = buffer.length - (t - head.get());
+            if (free <= 0 || !running) {
+                return;
+            }
+            int index = (int) t & mask;
+            int count = (int) Math.min(Math.min(free, CHUNK_SIZE), buffer.length - index);
+            delegate.fill(buffer, index, count);
+            tail = t + count;
+            produced += count;
+        }
+    }
+
+    /**
+     * @return 缓冲容量
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * @return 缓冲中剩余的id数量
+     */
+    public int getSize() {
+        return (int) Math.max(0, tail - head.get());
+    }
+
+    /**
+     * @return 当前的统计信息
+     */
+    public Stats getStats() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long produced = this.produced;
+        return new Stats(buffer.length, getSize(), refills, produced,
+                fallbacks.sum(), seconds > 0 ? produced / seconds : 0);
+    }
+
+    /**
+     * 停止生产线程，之后缓冲中剩余的id仍然可以取出，取完后直接生成
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(producer);
+    }
+
+    /**
+     * 统计信息
+     */
+    public static final class Stats {
+
+        private final int capacity;
+
+        private final int size;
+
+        private final long refills;
+
+        private final long produced;
+
+        private final long fallbacks;
+
+        private final double refillRate;
+
+        private Stats(int capacity, int size, long refills, long produced, long fallbacks, double refillRate) {
+            this.capacity = capacity;
+            this.size = size;
+            this.refills = refills;
+            this.produced = produced;
+            this.fallbacks = fallbacks;
+            this.refillRate = refillRate;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * @return 缓冲中剩余的id数量
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return 填充率，0到1
+         */
+        public double getFillRatio() {
+            return (double) size / capacity;
+        }
+
+        /**
+         * @return 低于水位后开始补充的次数
+         */
+        public long getRefills() {
+            return refills;
+        }
+
+        /**
+         * @return 预先生成的id总数
+         */
+        public long getProduced() {
+            return produced;
+        }
+
+        /**
+         * @return 缓冲为空时直接生成的次数
+         */
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        /**
+         * @return 启动以来平均每秒预先生成的id数
+         */
+        public double getRefillRate() {
+            return refillRate;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[capacity=" + capacity + ", size=" + size + ", refills=" + refills + ", produced="
+                    + produced + ", fallbacks=" + fallbacks + ", refillRate=" + String.format("%.1f", refillRate) + "/s]";
+        }
+    }
+
+}
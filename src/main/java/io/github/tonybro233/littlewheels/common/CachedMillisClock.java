@@ -0,0 +1,69 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓存的毫秒时钟，由一个守护线程每半毫秒读取一次系统时间，
+ * 读取时钟只是一次volatile读，相对系统时间最多滞后约一毫秒
+ *
+ * @author tony
+ */
+public final class CachedMillisClock implements MillisClock, AutoCloseable {
+
+    private static final long TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private volatile long millis = System.currentTimeMillis();
+
+    private volatile boolean running = true;
+
+    private final Thread ticker;
+
+    private CachedMillisClock() {
+        this.ticker = new Thread(() -> {
+            while (running) {
+                millis = System.currentTimeMillis();
+                LockSupport.parkNanos(TICK_NANOS);
+            }
+        }, "cached-millis-clock");
+        this.ticker.setDaemon(true);
+    }
+
+    /**
+     * 创建并启动时钟，不再使用时调用{@link #close()}停止更新线程
+     *
+     * @return 时钟
+     */
+    public static CachedMillisClock start() {
+        CachedMillisClock clock = new CachedMillisClock();
+        clock.ticker.start();
+        return clock;
+    }
+
+    /**
+     * @return 共享的时钟，首次使用时启动，不会停止
+     */
+    static CachedMillisClock shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    /**
+     * 停止更新线程，之后时钟不再变化
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private static final class Holder {
+
+        private static final CachedMillisClock SHARED = start();
+    }
+
+}
@@ -0,0 +1,28 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * 时钟回拨(如NTP向后调整)时{@link SnowFlake}的处理方式。
+ * 回拨幅度超过允许的最大值时，各策略都与{@link #FAIL_FAST}一样抛出异常
+ *
+ * @author tony
+ * @see SnowFlake.Builder#clockRollback(ClockRollbackStrategy, long)
+ */
+public enum ClockRollbackStrategy {
+
+    /**
+     * 立即抛出异常，直到时钟追上上次生成id的时间
+     */
+    FAIL_FAST,
+
+    /**
+     * 在锁内等待时钟追上上次生成id的时间，调用方只感受到延迟
+     */
+    WAIT,
+
+    /**
+     * 不等待，以上次生成id的时间作为逻辑时间继续分配序列号，序列号用尽时逻辑时间加一毫秒，
+     * 相当于向未来借用时间，时钟追上后恢复使用当前时间
+     */
+    BORROW
+
+}
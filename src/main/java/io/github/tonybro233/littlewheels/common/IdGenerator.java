@@ -0,0 +1,44 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * id生成器
+ *
+ * @author tony
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * @return 下一个id
+     */
+    long nextId();
+
+    /**
+     * 批量生成id
+     *
+     * @param n 数量
+     * @return 递增的id
+     */
+    default long[] nextIds(int n) {
+        long[] ids = new long[n];
+        fill(ids, 0, n);
+        return ids;
+    }
+
+    /**
+     * 批量生成id写入数组，默认逐个调用{@link #nextId()}，实现类可以一次预留一段序列号
+     *
+     * @param dst 目标数组
+     * @param off 开始位置
+     * @param len 数量
+     */
+    default void fill(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off > dst.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + dst.length);
+        }
+        for (int i = off; i < off + len; i++) {
+            dst[i] = nextId();
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * 按下标比较元素的比较器，避免对下标装箱
+ *
+ * @author tony
+ */
+@FunctionalInterface
+interface IndexComparator {
+
+    /**
+     * 比较下标i与下标j对应的元素
+     *
+     * @param i 下标
+     * @param j 下标
+     * @return 与{@link java.util.Comparator#compare(Object, Object)}一致
+     */
+    int compare(int i, int j);
+
+}
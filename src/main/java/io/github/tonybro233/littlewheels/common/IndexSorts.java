@@ -0,0 +1,237 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 下标数组(排列)的排序工具，所有排序都是稳定的：
+ * 比较相等的下标保持在原数组中的先后顺序
+ *
+ * @author tony
+ */
+final class IndexSorts {
+
+    /**
+     * 小于该长度的区间使用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private IndexSorts() {
+    }
+
+    /**
+     * @param n 长度
+     * @return 0到n-1的顺序下标
+     */
+    static int[] identity(int n) {
+        int[] indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * 稳定排序下标数组
+     *
+     * @param indexes    下标数组
+     * @param comparator 比较器
+     */
+    static void sort(int[] indexes, IndexComparator comparator) {
+        sort(indexes, 0, indexes.length, comparator);
+    }
+
+    /**
+     * 稳定排序下标数组的[from, to)区间
+     */
+    static void sort(int[] indexes, int from, int to, IndexComparator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int[] aux = new int[to - from];
+        mergeSort(indexes, aux, from, from, to, comparator);
+    }
+
+    /**
+     * 在ForkJoinPool中并行稳定排序下标数组，结果与{@link #sort(int[], IndexComparator)}一致 <br/>
+     * 数组被切分为parallelism段分别排序后逐层合并，同一时刻最多占用parallelism个线程。 <br/>
+     * 与单次遍历不同，各层合并时会通过比较器再次读取已提取的排序键，共读取约log2(parallelism)遍
+     *
+     * @param indexes     下标数组
+     * @param comparator  比较器，需要线程安全
+     * @param pool        线程池
+     * @param parallelism 最大并行度
+     */
+    static void parallelSort(int[] indexes, IndexComparator comparator, ForkJoinPool pool, int parallelism) {
+        if (parallelism <= 1 || indexes.length <= INSERTION_SORT_THRESHOLD) {
+            sort(indexes, comparator);
+            return;
+        }
+        int[] aux = new int[indexes.length];
+        pool.invoke(new SortTask(indexes, aux, 0, indexes.length, parallelism, comparator));
+    }
+
+    /**
+     * 排序[from, to)区间，aux中与a对应的位置为aux[i - auxBase]
+     */
+    private static void mergeSort(int[] a, int[] aux, int auxBase, int from, int to, IndexComparator c) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(a, from, to, c);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, aux, auxBase, from, mid, c);
+        mergeSort(a, aux, auxBase, mid, to, c);
+        merge(a, aux, auxBase, from, mid, to, c);
+    }
+
+    /**
+     * 合并相邻的两个有序区间[from, mid)与[mid, to)
+     */
+    private static void merge(int[] a, int[] aux, int auxBase, int from, int mid, int to, IndexComparator c) {
+        // 已经有序
+        if (c.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        int leftLength = mid - from;
+        int auxFrom = from - auxBase;
+        int auxEnd = auxFrom + leftLength;
+        System.arraycopy(a, from, aux, auxFrom, leftLength);
+        int i = auxFrom, j = mid, k = from;
+        while (i < auxEnd && j < to) {
+            // 相等时取左侧，保证稳定
+            if (c.compare(a[j], aux[i]) < 0) {
+                a[k++] = a[j++];
+            } else {
+                a[k++] = aux[i++];
+            }
+        }
+        if (i < auxEnd) {
+            System.arraycopy(aux, i, a, k, auxEnd - i);
+        }
+    }
+
+    private static void insertionSort(int[] a, int from, int to, IndexComparator c) {
+        for (int i = from + 1; i < to; i++) {
+            int v = a[i];
+            int j = i - 1;
+            while (j >= from && c.compare(a[j], v) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    /**
+     * 选出0到n-1中排序后的前k个下标，比较相等时下标小的在前
+     *
+     * @param n          元素数
+     * @param k          选取的数量
+     * @param comparator 比较器
+     * @return 排好序的前k个下标
+     */
+    static int[] select(int n, int k, IndexComparator comparator) {
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return new int[0];
+        }
+        IndexComparator stable = (i, j) -> {
+            int r = comparator.compare(i, j);
+            return r != 0 ? r : Integer.compare(i, j);
+        };
+        // 大顶堆，堆顶为保留的下标中最大的一个
+        int[] heap = new int[k];
+        for (int i = 0; i < k; i++) {
+            heap[i] = i;
+            siftUp(heap, i, stable);
+        }
+        for (int i = k; i < n; i++) {
+            // 新下标大于堆中所有下标，只有严格小于堆顶时才替换
+            if (comparator.compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, 0, k, stable);
+            }
+        }
+        for (int end = k - 1; end > 0; end--) {
+            int t = heap[0];
+            heap[0] = heap[end];
+            heap[end] = t;
+            siftDown(heap, 0, end, stable);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int i, IndexComparator c) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (c.compare(v, heap[parent]) <= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+    }
+
+    private static void siftDown(int[] heap, int i, int bound, IndexComparator c) {
+        int v = heap[i];
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= bound) {
+                break;
+            }
+            if (child + 1 < bound && c.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (c.compare(heap[child], v) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+    }
+
+    private static final class SortTask extends RecursiveAction {
+
+        private final int[] a;
+
+        private final int[] aux;
+
+        private final int from;
+
+        private final int to;
+
+        /**
+         * 当前区间可以使用的线程数
+         */
+        private final int parallelism;
+
+        private final IndexComparator comparator;
+
+        SortTask(int[] a, int[] aux, int from, int to, int parallelism, IndexComparator comparator) {
+            this.a = a;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+            this.parallelism = parallelism;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (parallelism <= 1 || to - from <= INSERTION_SORT_THRESHOLD) {
+                mergeSort(a, aux, 0, from, to, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            int leftParallelism = parallelism >>> 1;
+            invokeAll(new SortTask(a, aux, from, mid, leftParallelism, comparator),
+                    new SortTask(a, aux, mid, to, parallelism - leftParallelism, comparator));
+            merge(a, aux, 0, from, mid, to, comparator);
+        }
+    }
+
+}
@@ -0,0 +1,454 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 带排序索引的列表，适用于常驻内存、读多写少的数据。 <br/>
+ * 每个声明的索引属性保存一个按该属性升序排列的下标数组(NULL在前，相等时按下标)，
+ * 创建时排序一次(开启并行时各索引同时建立，每个索引也并行排序)，增删改时以O(n)的数组移动增量维护。 <br/>
+ * 第一个排序属性有索引时直接从索引取页，不再排序：降序时反向读取，NULL按NULL处理方式放在首段或末段，
+ * 第一个属性相等的区段再按其余排序属性与下标局部排序。
+ * 第一个排序属性没有索引或忽略大小写时退化为{@link PageWrapper#wrap(Collection, Pageable, PageWrapOptions)}。 <br/>
+ * 所有元素都是type本身的实例时，分页结果与对{@link #asList()}调用{@link PageWrapper#wrap(Collection, Pageable)}一致；
+ * 索引的属性读取器按type解析，而PageWrapper按第一个非NULL元素的类解析，元素为子类时两者可能不同 <br/>
+ * 线程安全，读写锁保护
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked"})
+public final class IndexedList<T> {
+
+    /**
+     * 默认选项，元素数达到{@link PageWrapOptions#DEFAULT_PARALLEL_THRESHOLD}时并行
+     */
+    private static final PageWrapOptions DEFAULT_OPTIONS = PageWrapOptions.builder().parallel().build();
+
+    private final Class<T> type;
+
+    private final PageWrapOptions options;
+
+    private final ArrayList<T> rows;
+
+    private final Map<String, Index> indexes = new LinkedHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IndexedList(Collection<T> content, Class<T> type, PageWrapOptions options, String... properties) {
+        this.type = type;
+        this.options = options;
+        this.rows = new ArrayList<>(content);
+        for (String property : properties) {
+            Comparator<Object> comparator = PageWrapper.comparator(type, Sort.by(Sort.Order.asc(property)));
+            if (null == comparator) {
+                throw new IllegalArgumentException("No property '" + property + "' found for " + type.getName());
+            }
+            indexes.put(property, new Index(PageWrapper.findAccessor(type, property), comparator));
+        }
+        if (options.isParallel(rows.size()) && indexes.size() > 1) {
+            // 各索引在线程池中同时建立，在指定的线程池中执行的并行流使用该线程池
+            options.getPool().submit(() -> indexes.values().parallelStream().forEach(Index::build)).join();
+        } else {
+            for (Index index : indexes.values()) {
+                index.build();
+            }
+        }
+    }
+
+    /**
+     * 元素数达到{@link PageWrapOptions#DEFAULT_PARALLEL_THRESHOLD}时在{@link java.util.concurrent.ForkJoinPool#commonPool()}中
+     * 并行建立索引
+     *
+     * @param content    内容
+     * @param type       元素类型
+     * @param properties 需要建立索引的属性
+     */
+    public static <T> IndexedList<T> of(Collection<T> content, Class<T> type, String... properties) {
+        return new IndexedList<>(content, type, DEFAULT_OPTIONS, properties);
+    }
+
+    /**
+     * @param content    内容
+     * @param type       元素类型
+     * @param options    分页选项，开启并行时并行建立索引，也用于没有索引时的排序
+     * @param properties 需要建立索引的属性
+     */
+    public static <T> IndexedList<T> of(Collection<T> content, Class<T> type,
+                                        PageWrapOptions options, String... properties) {
+        return new IndexedList<>(content, type, options, properties);
+    }
+
+    /**
+     * 分页，规则与{@link PageWrapper#wrap(Collection, Pageable)}相同
+     *
+     * @param pageable 分页
+     * @return 分页结果
+     */
+    public Page<T> page(@Nullable Pageable pageable) {
+        if (null != pageable && pageable.isUnpaged()) {
+            throw new UnsupportedOperationException("Not support unpaged!");
+        }
+        lock.readLock().lock();
+        try {
+            Sort sort = null == pageable ? Sort.unsorted() : pageable.getSort();
+            Sort.Order leading = sort.stream().findFirst().orElse(null);
+            Index index = null == leading || leading.isIgnoreCase() ? null : indexes.get(leading.getProperty());
+            if (null == index) {
+                return PageWrapper.wrap(rows, pageable, options);
+            }
+
+            Pageable reasonablePage = PageWrapper.rationalization(rows.size(), pageable);
+            if (rows.isEmpty()) {
+                return new PageImpl<>(Collections.emptyList(), reasonablePage, 0);
+            }
+            int[] bounds = PageWrapper.sliceBounds(rows.size(), reasonablePage);
+            List<Sort.Order> rest = sort.stream().skip(1).collect(Collectors.toList());
+            Comparator<Object> tieBreaker = rest.isEmpty() ? null : PageWrapper.comparator(type, Sort.by(rest));
+            return new PageImpl<>(index.slice(leading, tieBreaker, bounds), reasonablePage, rows.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在末尾添加元素
+     *
+     * @param element 元素
+     */
+    public void add(T element) {
+        lock.writeLock().lock();
+        try {
+            rows.add(element);
+            for (Index index : indexes.values()) {
+                index.insert(rows.size() - 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 替换指定位置的元素
+     *
+     * @param i       下标
+     * @param element 元素
+     * @return 原来的元素
+     */
+    public T set(int i, T element) {
+        lock.writeLock().lock();
+        try {
+            T old = rows.get(i);
+            for (Index index : indexes.values()) {
+                index.delete(i, false);
+            }
+            rows.set(i, element);
+            for (Index index : indexes.values()) {
+                index.insert(i);
+            }
+            return old;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 元素的属性发生变化后重新定位该元素
+     *
+     * @param i 下标
+     */
+    public void reindex(int i) {
+        lock.writeLock().lock();
+        try {
+            // 检查下标
+            rows.get(i);
+            for (Index index : indexes.values()) {
+                index.delete(i, false);
+                index.insert(i);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除指定位置的元素，之后的元素下标减一
+     *
+     * @param i 下标
+     * @return 删除的元素
+     */
+    public T remove(int i) {
+        lock.writeLock().lock();
+        try {
+            T old = rows.get(i);
+            for (Index index : indexes.values()) {
+                index.delete(i, true);
+            }
+            rows.remove(i);
+            return old;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public T get(int i) {
+        lock.readLock().lock();
+        try {
+            return rows.get(i);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 当前内容的副本
+     */
+    public List<T> asList() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(rows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 各索引占用的内存(字节)，按声明顺序
+     */
+    public Map<String, Long> getIndexMemory() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> memory = new LinkedHashMap<>();
+            indexes.forEach((property, index) -> memory.put(property, index.memory()));
+            return memory;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 单个属性的索引：按(属性值升序，NULL在前，下标)排列的下标数组，NULL位于[0, nullCount)
+     */
+    private final class Index {
+
+        private final PropertyAccessor accessor;
+
+        private final Comparator<Object> comparator;
+
+        private int[] sorted;
+
+        private int nullCount;
+
+        Index(PropertyAccessor accessor, Comparator<Object> comparator) {
+            this.accessor = accessor;
+            this.comparator = comparator;
+        }
+
+        void build() {
+            int size = rows.size();
+            sorted = IndexSorts.identity(size);
+            IndexComparator byValue = (i, j) -> comparator.compare(rows.get(i), rows.get(j));
+            if (options.isParallel(size)) {
+                IndexSorts.parallelSort(sorted, byValue, options.getPool(), options.getParallelism());
+            } else {
+                IndexSorts.sort(sorted, byValue);
+            }
+            nullCount = 0;
+            for (T row : rows) {
+                if (null == accessor.get(row)) {
+                    nullCount++;
+                }
+            }
+        }
+
+        long memory() {
+            // 数组对象头16字节
+            return 16L + 4L * sorted.length;
+        }
+
+        /**
+         * 将rows中下标为row的元素插入索引
+         */
+        void insert(int row) {
+            int size = rows.size() - 1;
+            T element = rows.get(row);
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int result = comparator.compare(rows.get(sorted[mid]), element);
+                if (result < 0 || (result == 0 && sorted[mid] < row)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (size == sorted.length) {
+                int[] grown = new int[Math.max(16, size + (size >> 1))];
+                System.arraycopy(sorted, 0, grown, 0, size);
+                sorted = grown;
+            }
+            System.arraycopy(sorted, lo, sorted, lo + 1, size - lo);
+            sorted[lo] = row;
+            if (null == accessor.get(element)) {
+                nullCount++;
+            }
+        }
+
+        /**
+         * 从索引中删除下标为row的元素，元素的属性可能已经变化，所以顺序查找
+         *
+         * @param shift 是否将之后的下标减一
+         */
+        void delete(int row, boolean shift) {
+            int size = rows.size();
+            int position = -1;
+            for (int p = 0; p < size; p++) {
+                int r = sorted[p];
+                if (r == row) {
+                    position = p;
+                } else if (shift && r > row) {
+                    sorted[p] = r - 1;
+                }
+            }
+            System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+            if (position < nullCount) {
+                nullCount--;
+            }
+        }
+
+        /**
+         * 按排序读取[bounds[0], bounds[1])的元素
+         *
+         * @param leading    第一个排序属性
+         * @param tieBreaker 其余排序属性的比较器，没有时为null
+         * @param bounds     开始与结束位置
+         */
+        List<T> slice(Sort.Order leading, @Nullable Comparator<Object> tieBreaker, int[] bounds) {
+            View view = new View(leading);
+            // 从开始位置所在的相等区段开始，逐个区段局部排序
+            int position = view.runStart(bounds[0]);
+            List<T> subList = new ArrayList<>(bounds[1] - bounds[0]);
+            while (position < bounds[1]) {
+                int end = view.runEnd(position);
+                int[] run = new int[end - position];
+                for (int p = position; p < end; p++) {
+                    run[p - position] = view.rowAt(p);
+                }
+                if (run.length > 1) {
+                    IndexSorts.sort(run, (i, j) -> {
+                        int result = null == tieBreaker ? 0 : tieBreaker.compare(rows.get(i), rows.get(j));
+                        return result != 0 ? result : Integer.compare(i, j);
+                    });
+                }
+                for (int p = Math.max(position, bounds[0]); p < Math.min(end, bounds[1]); p++) {
+                    subList.add(rows.get(run[p - position]));
+                }
+                position = end;
+            }
+            return subList;
+        }
+
+        /**
+         * 按请求的方向与NULL处理方式读取索引的视图
+         */
+        private final class View {
+
+            private final boolean descending;
+
+            private final boolean nullsFirst;
+
+            View(Sort.Order order) {
+                this.descending = order.isDescending();
+                switch (order.getNullHandling()) {
+                    case NULLS_FIRST:
+                        nullsFirst = true;
+                        break;
+                    case NULLS_LAST:
+                        nullsFirst = false;
+                        break;
+                    case NATIVE:
+                    default:
+                        // 默认NULL最小
+                        nullsFirst = !descending;
+                }
+            }
+
+            int rowAt(int p) {
+                int size = rows.size();
+                int nonNulls = size - nullCount;
+                int k;
+                if (nullsFirst) {
+                    if (p < nullCount) {
+                        return sorted[p];
+                    }
+                    k = p - nullCount;
+                } else {
+                    if (p >= nonNulls) {
+                        return sorted[p - nonNulls];
+                    }
+                    k = p;
+                }
+                return descending ? sorted[size - 1 - k] : sorted[nullCount + k];
+            }
+
+            private boolean same(int p, int q) {
+                return comparator.compare(rows.get(rowAt(p)), rows.get(rowAt(q))) == 0;
+            }
+
+            /**
+             * 与位置p相等的区段的开始位置
+             */
+            int runStart(int p) {
+                int lo = 0, hi = p;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (same(mid, p)) {
+                        hi = mid;
+                    } else {
+                        lo = mid + 1;
+                    }
+                }
+                return lo;
+            }
+
+            /**
+             * 与位置p相等的区段的结束位置(不包含)
+             */
+            int runEnd(int p) {
+                int lo = p + 1, hi = rows.size();
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (same(mid, p)) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                return lo;
+            }
+        }
+    }
+
+}
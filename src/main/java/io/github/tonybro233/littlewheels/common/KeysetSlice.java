@@ -0,0 +1,35 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * 游标分页结果，携带用于获取下一页的游标
+ *
+ * @author tony
+ * @see PagedView#seek(org.springframework.data.domain.Sort, String, int)
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Nullable
+    private final String continuationToken;
+
+    public KeysetSlice(List<T> content, Pageable pageable, @Nullable String continuationToken) {
+        super(content, pageable, null != continuationToken);
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return 获取下一页的游标，没有下一页时为null
+     */
+    @Nullable
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+}
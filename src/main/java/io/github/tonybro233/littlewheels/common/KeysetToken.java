@@ -0,0 +1,187 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * 游标分页的游标：最后一行的排序键与其在数据中的序号(排序键相同时区分先后) <br/>
+ * 编码为URL安全的Base64字符串，只包含基本类型与字符串，不使用Java序列化
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class KeysetToken {
+
+    private static final byte VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+
+    private static final byte TAG_LONG = 1;
+
+    private static final byte TAG_DOUBLE = 2;
+
+    private static final byte TAG_STRING = 3;
+
+    /**
+     * 其它Comparable类型，以字符串形式保存，按属性的声明类型还原
+     */
+    private static final byte TAG_TEXT = 4;
+
+    final Object[] key;
+
+    final int index;
+
+    private KeysetToken(Object[] key, int index) {
+        this.key = key;
+        this.index = index;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param sort  排序信息
+     * @param keys  排序键结构，无需排序时为null
+     * @param key   最后一行的排序键
+     * @param index 最后一行在数据中的序号
+     * @return 游标
+     */
+    static String encode(Sort sort, @Nullable SortKeys keys, Object[] key, int index) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeInt(sortHash(sort));
+            out.writeInt(key.length);
+            for (int c = 0; c < key.length; c++) {
+                Object value = key[c];
+                if (null == value) {
+                    out.writeByte(TAG_NULL);
+                } else if (value instanceof Long) {
+                    out.writeByte(TAG_LONG);
+                    out.writeLong((Long) value);
+                } else if (value instanceof Double) {
+                    out.writeByte(TAG_DOUBLE);
+                    out.writeDouble((Double) value);
+                } else if (value instanceof String) {
+                    out.writeByte(TAG_STRING);
+                    writeString(out, (String) value);
+                } else {
+                    String text = value instanceof Enum ? ((Enum) value).name() : value.toString();
+                    if (!Objects.equals(value, fromText(text, keys.typeOf(c)))) {
+                        throw new IllegalStateException("Keyset pagination doesn't support property type "
+                                + keys.typeOf(c).getName());
+                    }
+                    out.writeByte(TAG_TEXT);
+                    writeString(out, text);
+                }
+            }
+            out.writeInt(index);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param token 游标
+     * @param sort  排序信息，需要与生成游标时一致
+     * @param keys  排序键结构，无需排序时为null
+     * @return 游标
+     */
+    static KeysetToken decode(String token, Sort sort, @Nullable SortKeys keys) {
+        int width = null == keys ? 0 : keys.width();
+        try {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            if (in.readByte() != VERSION || in.readInt() != sortHash(sort) || in.readInt() != width) {
+                throw new IllegalArgumentException("Continuation token doesn't match the sort");
+            }
+            Object[] key = new Object[width];
+            for (int c = 0; c < width; c++) {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case TAG_NULL:
+                        break;
+                    case TAG_LONG:
+                        key[c] = in.readLong();
+                        break;
+                    case TAG_DOUBLE:
+                        key[c] = in.readDouble();
+                        break;
+                    case TAG_STRING:
+                        key[c] = readString(in);
+                        break;
+                    case TAG_TEXT:
+                        key[c] = fromText(readString(in), keys.typeOf(c));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid continuation token");
+                }
+                // 被篡改或过期的游标中值的类型与排序属性不一致时，之后比较会抛出ClassCastException
+                if (null != key[c] && !keys.keyTypeOf(c).isInstance(key[c])) {
+                    throw new IllegalArgumentException("Invalid continuation token");
+                }
+            }
+            return new KeysetToken(key, in.readInt());
+        } catch (IOException | RuntimeException ex) {
+            if (ex instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) ex;
+            }
+            throw new IllegalArgumentException("Invalid continuation token", ex);
+        }
+    }
+
+    /**
+     * 从字符串还原属性值：枚举按名称，有静态parse(CharSequence)方法的(如java.time)调用parse，
+     * 其余使用Spring的类型转换
+     */
+    private static Object fromText(String text, Class<?> type) {
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, text);
+        }
+        Method parse = ReflectionUtils.findMethod(type, "parse", CharSequence.class);
+        if (null != parse && Modifier.isStatic(parse.getModifiers()) && type.isAssignableFrom(parse.getReturnType())) {
+            return ReflectionUtils.invokeMethod(parse, null, text);
+        }
+        return DefaultConversionService.getSharedInstance().convert(text, type);
+    }
+
+    /**
+     * 枚举的hashCode在不同JVM中不同，使用字符串形式计算
+     */
+    private static int sortHash(Sort sort) {
+        return sort.toString().hashCode();
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
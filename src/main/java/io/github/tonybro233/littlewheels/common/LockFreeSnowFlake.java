@@ -0,0 +1,194 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁的{@link SnowFlake}，id格式、单调递增与时钟回拨检查都与{@link SnowFlake}相同。 <br/>
+ * 上次生成的时间戳与序列号合并保存在一个{@link AtomicLong}中，通过CAS推进，
+ * 高并发时没有监视器锁竞争
+ *
+ * @author tony
+ */
+public final class LockFreeSnowFlake implements IdGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LockFreeSnowFlake.class);
+
+    private final long workerId;
+
+    private final long datacenterId;
+
+    /**
+     * id格式
+     */
+    private final SnowFlakeLayout layout;
+
+    private final long twepoch;
+
+    private final int sequenceBits;
+
+    private final long sequenceMask;
+
+    private final int workerIdShift;
+
+    private final int datacenterIdShift;
+
+    private final int timestampLeftShift;
+
+    /**
+     * 时间来源
+     */
+    private final MillisClock clock;
+
+    /**
+     * 上次生成id的(时间戳 - 起始时间) << 序列号位数 | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public static LockFreeSnowFlake newInstance(long workerId, long datacenterId) {
+        return new LockFreeSnowFlake(workerId, datacenterId, SnowFlakeLayout.DEFAULT, MillisClock.system());
+    }
+
+    /**
+     * @param clock 时间来源
+     */
+    public static LockFreeSnowFlake newInstance(long workerId, long datacenterId, MillisClock clock) {
+        return new LockFreeSnowFlake(workerId, datacenterId, SnowFlakeLayout.DEFAULT, clock);
+    }
+
+    /**
+     * @param layout id格式
+     * @param clock  时间来源
+     */
+    public static LockFreeSnowFlake newInstance(long workerId, long datacenterId,
+                                                SnowFlakeLayout layout, MillisClock clock) {
+        return new LockFreeSnowFlake(workerId, datacenterId, layout, clock);
+    }
+
+    private LockFreeSnowFlake(long workerId, long datacenterId, SnowFlakeLayout layout, MillisClock clock) {
+        if (workerId > layout.getMaxWorkerId() || workerId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("worker Id can't be greater than %d or less than 0", layout.getMaxWorkerId()));
+        }
+        if (datacenterId > layout.getMaxDatacenterId() || datacenterId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("datacenter Id can't be greater than %d or less than 0", layout.getMaxDatacenterId()));
+        }
+        LOGGER.info("Lock-free snowflake worker starting. datacenter id {}, worker id {}, {}",
+                datacenterId, workerId, layout);
+        this.workerId = workerId;
+        this.datacenterId = datacenterId;
+        this.layout = layout;
+        this.twepoch = layout.getEpoch();
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getSequenceMask();
+        this.workerIdShift = layout.getWorkerIdShift();
+        this.datacenterIdShift = layout.getDatacenterIdShift();
+        this.timestampLeftShift = layout.getTimestampShift();
+        this.clock = clock;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public SnowFlakeLayout getLayout() {
+        return layout;
+    }
+
+    public long getTimestamp() {
+        return clock.millis();
+    }
+
+    @Override
+    public long nextId() {
+        for (; ; ) {
+            long current = state.get();
+            long lastTimestamp = (current >>> sequenceBits) + twepoch;
+            // 先读取状态再读取时间，其它线程写入的时间戳不会晚于这里读到的时间，除非时钟倒退
+            long timestamp = timeGen();
+            if (timestamp < lastTimestamp) {
+                LOGGER.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
+                throw new RuntimeException(String.format(
+                        "Clock moved backwards.  Refusing to generate id for %d milliseconds",
+                        lastTimestamp - timestamp));
+            }
+            long sequence = 0;
+            if (timestamp == lastTimestamp) {
+                sequence = ((current & sequenceMask) + 1) & sequenceMask;
+                if (sequence == 0) {
+                    // 序列号用尽，等到下一毫秒
+                    timestamp = tilNextMillis(lastTimestamp);
+                }
+            }
+            long next = ((timestamp - twepoch) << sequenceBits) | sequence;
+            if (state.compareAndSet(current, next)) {
+                return ((timestamp - twepoch) << timestampLeftShift)
+                        | (datacenterId << datacenterIdShift)
+                        | (workerId << workerIdShift)
+                        | sequence;
+            }
+        }
+    }
+
+    /**
+     * 批量生成id，每次CAS预留当前毫秒内剩余的一段序列号，序列号用尽时等到下一毫秒
+     */
+    @Override
+    public void fill(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off > dst.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + dst.length);
+        }
+        int end = off + len;
+        while (off < end) {
+            long current = state.get();
+            long lastTimestamp = (current >>> sequenceBits) + twepoch;
+            long timestamp = timeGen();
+            if (timestamp < lastTimestamp) {
+                LOGGER.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
+                throw new RuntimeException(String.format(
+                        "Clock moved backwards.  Refusing to generate id for %d milliseconds",
+                        lastTimestamp - timestamp));
+            }
+            long start = 0;
+            if (timestamp == lastTimestamp) {
+                if ((current & sequenceMask) == sequenceMask) {
+                    timestamp = tilNextMillis(lastTimestamp);
+                } else {
+                    start = (current & sequenceMask) + 1;
+                }
+            }
+            int count = (int) Math.min(end - off, sequenceMask - start + 1);
+            long next = ((timestamp - twepoch) << sequenceBits) | (start + count - 1);
+            if (!state.compareAndSet(current, next)) {
+                continue;
+            }
+            long base = ((timestamp - twepoch) << timestampLeftShift)
+                    | (datacenterId << datacenterIdShift)
+                    | (workerId << workerIdShift);
+            for (int i = 0; i < count; i++) {
+                dst[off + i] = base | (start + i);
+            }
+            off += count;
+        }
+    }
+
+    private long tilNextMillis(long lastTimestamp) {
+        long timestamp = timeGen();
+        while (timestamp <= lastTimestamp) {
+            timestamp = timeGen();
+        }
+        return timestamp;
+    }
+
+    private long timeGen() {
+        return clock.millis();
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 手动设置的毫秒时钟，用于测试时间相关的行为，如序列号用尽、时钟回拨
+ *
+ * @author tony
+ */
+public final class ManualMillisClock implements MillisClock {
+
+    private final AtomicLong millis;
+
+    public ManualMillisClock(long millis) {
+        this.millis = new AtomicLong(millis);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    public void set(long millis) {
+        this.millis.set(millis);
+    }
+
+    /**
+     * @param delta 前进的毫秒数，可以为负数
+     * @return 前进后的时间
+     */
+    public long advance(long delta) {
+        return millis.addAndGet(delta);
+    }
+
+}
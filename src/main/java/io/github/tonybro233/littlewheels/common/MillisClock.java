@@ -0,0 +1,43 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * 毫秒时钟，{@link SnowFlake}等id生成器的时间来源
+ *
+ * @author tony
+ */
+@FunctionalInterface
+public interface MillisClock {
+
+    /**
+     * @return 当前时间的毫秒数
+     */
+    long millis();
+
+    /**
+     * @return 每次调用{@link System#currentTimeMillis()}的时钟
+     */
+    static MillisClock system() {
+        return System::currentTimeMillis;
+    }
+
+    /**
+     * @return 共享的缓存时钟，由一个后台线程更新，读取只是一次volatile读
+     * @see CachedMillisClock
+     */
+    static MillisClock cached() {
+        return CachedMillisClock.shared();
+    }
+
+    /**
+     * 以创建时的系统时间为基准、按{@link System#nanoTime()}推算的时钟，单调不倒退，
+     * 但不跟随系统时间的调整，长时间运行可能与系统时间产生偏差
+     *
+     * @return 时钟
+     */
+    static MillisClock nanoAnchored() {
+        long anchorMillis = System.currentTimeMillis();
+        long anchorNanos = System.nanoTime();
+        return () -> anchorMillis + (System.nanoTime() - anchorNanos) / 1_000_000L;
+    }
+
+}
@@ -0,0 +1,176 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 逐个接收元素并计数，只在内存中保留分页所需的元素 <br/>
+ * 不排序时保留请求页与最后pageSize个元素(用于超过最后一页时的合理化)，占用O(pageSize)；
+ * 排序时使用TopK选择保留前(offset + pageSize)个元素 <br/>
+ * 切片模式不计算总数，多保留一个元素用于判断是否有下一页，不排序时读满即可停止
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked"})
+final class PageCollector<T> {
+
+    private final Pageable pageable;
+
+    private final int offset;
+
+    private final int pageSize;
+
+    /**
+     * 切片模式
+     */
+    private final boolean slice;
+
+    /**
+     * 需要保留的元素数
+     */
+    private final int limit;
+
+    /**
+     * 是否已根据第一个非NULL元素确定排序方式
+     */
+    private boolean resolved;
+
+    private TopKSelector<T> selector;
+
+    private final List<T> window;
+
+    /**
+     * 最后pageSize个元素的环形缓冲
+     */
+    private Object[] tail;
+
+    private long count;
+
+    PageCollector(Pageable pageable, boolean slice) {
+        if (pageable.isUnpaged()) {
+            throw new UnsupportedOperationException("Not support unpaged!");
+        }
+        int pageSize = Math.max(1, pageable.getPageSize());
+        if (pageable.getOffset() + pageSize + 1 > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Offset too large");
+        }
+        this.pageable = pageable;
+        this.offset = (int) pageable.getOffset();
+        this.pageSize = pageSize;
+        this.slice = slice;
+        this.limit = offset + pageSize + (slice ? 1 : 0);
+        this.window = new ArrayList<>(Math.min(limit - offset, 1024));
+        this.tail = slice ? null : new Object[Math.min(pageSize, 1024)];
+    }
+
+    void accept(T element) {
+        if (!resolved && null != element) {
+            resolve(element.getClass());
+        }
+        if (null != selector) {
+            selector.offer(element);
+            return;
+        }
+
+        long index = count++;
+        if (index >= offset && index < limit) {
+            window.add(element);
+        }
+        if (!slice) {
+            pushTail(index, element);
+        }
+    }
+
+    /**
+     * 切片模式下不需要排序且已经读满时，不必再读取后续元素。
+     * 请求了排序但还没有确定时(只读到NULL)不能停止
+     */
+    boolean isFull() {
+        return slice && null == selector && count >= limit
+                && (resolved || pageable.getSort().isUnsorted());
+    }
+
+    /**
+     * 确定是否需要排序，在此之前收到的都是NULL
+     */
+    private void resolve(Class<?> clazz) {
+        resolved = true;
+        Sort sort = pageable.getSort();
+        Comparator<T> comparator = PageWrapper.comparator(clazz, sort);
+        if (null == comparator) {
+            return;
+        }
+        selector = new TopKSelector<>(comparator, limit);
+        for (long i = 0; i < count; i++) {
+            selector.offer(null);
+        }
+        count = 0;
+        window.clear();
+    }
+
+    private void pushTail(long index, T element) {
+        if (index == tail.length && tail.length < pageSize) {
+            // 按需扩容，避免pageSize很大时预先分配
+            Object[] newTail = new Object[(int) Math.min(pageSize, (long) tail.length << 1)];
+            System.arraycopy(tail, 0, newTail, 0, tail.length);
+            tail = newTail;
+        }
+        tail[(int) (index % tail.length)] = element;
+    }
+
+    Page<T> toPage() {
+        long total = null == selector ? count : selector.count();
+        Pageable reasonablePage = PageWrapper.rationalization(total, pageable);
+        if (total == 0) {
+            return new PageImpl<>(Collections.emptyList(), reasonablePage, total);
+        }
+
+        List<T> content;
+        if (offset < total) {
+            // 请求的页在范围内，总数可以超过int范围
+            if (null != selector) {
+                List<T> sorted = selector.toSortedList();
+                content = sorted.subList(offset, Math.min(offset + pageSize, sorted.size()));
+            } else {
+                content = window;
+            }
+        } else {
+            // 超过最后一页时总数不足(offset + pageSize)，TopK选择保留了全部元素，环形缓冲保留了最后一页
+            int[] bounds = PageWrapper.sliceBounds((int) total, reasonablePage);
+            if (null != selector) {
+                content = selector.toSortedList().subList(bounds[0], bounds[1]);
+            } else {
+                content = new ArrayList<>(bounds[1] - bounds[0]);
+                for (long i = bounds[0]; i < bounds[1]; i++) {
+                    content.add((T) tail[(int) (i % tail.length)]);
+                }
+            }
+        }
+        return new PageImpl<>(content, reasonablePage, total);
+    }
+
+    Slice<T> toSlice() {
+        List<T> content;
+        if (null != selector) {
+            List<T> sorted = selector.toSortedList();
+            content = offset < sorted.size() ? sorted.subList(offset, sorted.size()) : Collections.emptyList();
+        } else {
+            content = window;
+        }
+        boolean hasNext = content.size() > pageSize;
+        if (hasNext) {
+            content = content.subList(0, pageSize);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+}
@@ -0,0 +1,142 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link PageWrapper}的分页选项
+ *
+ * @author tony
+ */
+public final class PageWrapOptions {
+
+    /**
+     * 默认选项
+     */
+    public static final PageWrapOptions DEFAULT = builder().build();
+
+    /**
+     * 建议的并行排序阈值
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    private final boolean extractKeys;
+
+    private final int parallelThreshold;
+
+    private final ForkJoinPool pool;
+
+    private final int parallelism;
+
+    private PageWrapOptions(Builder builder) {
+        this.extractKeys = builder.extractKeys;
+        this.parallelThreshold = builder.parallelThreshold;
+        this.pool = builder.pool;
+        this.parallelism = builder.parallelism;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 是否预先提取排序键再排序
+     */
+    public boolean isExtractKeys() {
+        return extractKeys;
+    }
+
+    /**
+     * 元素数不小于该值时并行排序，默认不并行
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 并行排序使用的线程池，默认为{@link ForkJoinPool#commonPool()}
+     */
+    public ForkJoinPool getPool() {
+        return null == pool ? ForkJoinPool.commonPool() : pool;
+    }
+
+    /**
+     * 单次排序最多占用的线程数，默认为线程池的并行度
+     */
+    public int getParallelism() {
+        return parallelism > 0 ? parallelism : getPool().getParallelism();
+    }
+
+    boolean isParallel(int size) {
+        return size >= parallelThreshold && getParallelism() > 1;
+    }
+
+    public static final class Builder {
+
+        private boolean extractKeys;
+
+        private int parallelThreshold = Integer.MAX_VALUE;
+
+        private ForkJoinPool pool;
+
+        private int parallelism;
+
+        private Builder() {
+        }
+
+        /**
+         * 预先将每个元素的排序属性读取一次存入列式数组，再对下标排序，
+         * 排序过程中不再调用Getter。适合多属性排序、非Comparable属性与忽略大小写排序的大集合
+         *
+         * @param extractKeys 是否提取排序键，默认false
+         */
+        public Builder extractKeys(boolean extractKeys) {
+            this.extractKeys = extractKeys;
+            return this;
+        }
+
+        /**
+         * 以{@link #DEFAULT_PARALLEL_THRESHOLD}为阈值开启并行排序
+         */
+        public Builder parallel() {
+            return parallelThreshold(DEFAULT_PARALLEL_THRESHOLD);
+        }
+
+        /**
+         * 元素数不小于阈值时在ForkJoinPool中并行排序，结果与顺序排序一致。
+         * 选取靠前的页时仍使用TopK选择
+         *
+         * @param parallelThreshold 并行排序阈值
+         */
+        public Builder parallelThreshold(int parallelThreshold) {
+            if (parallelThreshold < 0) {
+                throw new IllegalArgumentException("parallel threshold can't be less than 0");
+            }
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        /**
+         * @param pool 并行排序使用的线程池
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * @param parallelism 单次排序最多占用的线程数
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism can't be less than 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public PageWrapOptions build() {
+            return new PageWrapOptions(this);
+        }
+    }
+
+}
@@ -8,7 +8,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 数据集合分页包装器
@@ -18,10 +20,31 @@ import java.util.stream.Collectors;
 @SuppressWarnings({"unchecked"})
 public final class PageWrapper {
 
+    /**
+     * 随机排序使用的保留排序属性前缀，之后是种子，如"$random:42"
+     */
+    public static final String RANDOM_SORT_PREFIX = "$random:";
+
+    /**
+     * 由种子确定的随机排序，作为第一个排序属性时按{@link RandomSubListUtils#permute(long, int, int)}
+     * 的伪随机排列分页，之后的排序属性被忽略。同一种子、同样的数据下各页稳定且不重叠，
+     * 每页只计算O(pageSize)个位置，不打乱整个集合。 <br/>
+     * 支持的入口：{@code wrap}与{@code slice}的各重载(Stream、Iterator与过滤后分页需要先读取全部元素得到总数)、
+     * {@link PagedView#page(Pageable)}、{@link IndexedList#page(Pageable)}；
+     * {@link PagedView#seek(Sort, String, int)}不支持，抛出{@link IllegalArgumentException}
+     *
+     * @param seed 种子
+     * @return 排序
+     */
+    public static Sort randomSort(long seed) {
+        return Sort.by(RANDOM_SORT_PREFIX + seed);
+    }
+
     /**
      * 根据分页信息将{@link Collection}包装为{@link Page}，集合将根据分页信息
      * 重新排序(如果有排序内容)、切割。 <br/>
      * 分页信息自动合理化，不会超过最大页数 <br/>
+     * 集合会被复制，{@link SnapshotList}的快照除外 <br/>
      * 若分页信息为空，返回单页page <br/>
      * NULL默认为最小值
      *
@@ -31,68 +54,469 @@ public final class PageWrapper {
      * @return 分页结果
      */
     public static <T> Page<T> wrap(Collection<T> content, @Nullable Pageable pageable) {
+        return wrap(content, pageable, PageWrapOptions.DEFAULT);
+    }
+
+    /**
+     * 根据分页信息与分页选项将{@link Collection}包装为{@link Page}
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param options  分页选项
+     * @param <T>      泛型
+     * @return 分页结果
+     * @see #wrap(Collection, Pageable)
+     */
+    public static <T> Page<T> wrap(Collection<T> content, @Nullable Pageable pageable, PageWrapOptions options) {
         Optional<Pageable> optionalPageable = Optional.ofNullable(pageable);
         if (optionalPageable.map(Pageable::isUnpaged).orElse(false)) {
             throw new UnsupportedOperationException("Not support unpaged!");
         }
-        final List<T> list = new ArrayList<>(content);
-        sortContent(list, optionalPageable.map(Pageable::getSort).orElse(null));
-        Pageable reasonablePage = rationalization(list, pageable);
-        List<T> subList = sliceContent(list, reasonablePage);
+        Long seed = randomSeed(optionalPageable.map(Pageable::getSort).orElse(null));
+        if (null != seed) {
+            return randomPage(content, pageable, seed);
+        }
+        // 快照不可变，不需要复制
+        final List<T> list = content instanceof SnapshotList.Snapshot ?
+                (List<T>) content : new ArrayList<>(content);
+        Pageable reasonablePage = rationalization(list.size(), pageable);
+        List<GetterComparator> comparators = resolveComparators(
+                sampleClass(list), optionalPageable.map(Pageable::getSort).orElse(null));
+
+        List<T> subList;
+        if (comparators.isEmpty()) {
+            subList = sliceContent(list, reasonablePage);
+        } else if (options.isExtractKeys()) {
+            subList = sortByKeys(list, comparators, reasonablePage, options);
+        } else {
+            subList = sortByComparator(list, new ComparatorChain(comparators), reasonablePage, options);
+        }
 
         return new PageImpl<>(subList, reasonablePage, list.size());
     }
 
+    /**
+     * 过滤后分页，一次遍历完成过滤、计数与截取，不创建中间集合 <br/>
+     * 按属性过滤可以使用{@link PropertyFilter}
+     *
+     * @param content  内容
+     * @param filter   过滤条件
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 分页结果
+     * @see #wrap(Collection, Pageable)
+     */
+    public static <T> Page<T> wrap(Collection<T> content, Predicate<? super T> filter, @Nullable Pageable pageable) {
+        return wrap(new FilterIterator<>(content.iterator(), filter), pageable);
+    }
+
+    /**
+     * 过滤后分页，元素数达到{@link PageWrapOptions#getParallelThreshold()}时在线程池中并行过滤，
+     * 过滤条件需要是线程安全的。 <br/>
+     * 并行过滤时不是一次遍历：过滤结果先收集到中间集合再分页，排序时各段合并还会再次读取排序键
+     *
+     * @param content  内容
+     * @param filter   过滤条件
+     * @param pageable 分页
+     * @param options  分页选项
+     * @param <T>      泛型
+     * @return 分页结果
+     * @see #wrap(Collection, Predicate, Pageable)
+     */
+    public static <T> Page<T> wrap(Collection<T> content, Predicate<? super T> filter,
+                                   @Nullable Pageable pageable, PageWrapOptions options) {
+        if (!options.isParallel(content.size())) {
+            return wrap(content, filter, pageable);
+        }
+        // 在指定的线程池中执行的并行流使用该线程池
+        List<T> filtered = options.getPool().submit(() ->
+                content.parallelStream().filter(filter).collect(Collectors.toList())).join();
+        return wrap(filtered, pageable, options);
+    }
+
+    /**
+     * 根据分页信息将{@link Stream}包装为{@link Page}，逐个读取元素计数，
+     * 不排序时只在内存中保留O(pageSize)个元素，排序时保留前(offset + pageSize)个元素。 <br/>
+     * 流由调用方负责关闭 <br/>
+     * 分页信息为空时读取全部元素，返回单页page
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 分页结果
+     * @see #wrap(Collection, Pageable)
+     */
+    public static <T> Page<T> wrap(Stream<T> content, @Nullable Pageable pageable) {
+        return wrap(content.iterator(), pageable);
+    }
+
+    /**
+     * 根据分页信息将{@link Iterator}包装为{@link Page}
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 分页结果
+     * @see #wrap(Stream, Pageable)
+     */
+    public static <T> Page<T> wrap(Iterator<T> content, @Nullable Pageable pageable) {
+        if (null == pageable || null != randomSeed(pageable.getSort())) {
+            // 随机排序需要知道总数
+            List<T> list = new ArrayList<>();
+            content.forEachRemaining(list::add);
+            return wrap(list, pageable);
+        }
+        PageCollector<T> collector = new PageCollector<>(pageable, false);
+        content.forEachRemaining(collector::accept);
+        return collector.toPage();
+    }
+
+    /**
+     * 根据分页信息将{@link Collection}包装为{@link Slice}，不计算总数。 <br/>
+     * 与{@link Page}不同，超过最后一页时返回空切片而不是最后一页
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 切片结果
+     * @see #slice(Iterator, Pageable)
+     */
+    public static <T> Slice<T> slice(Collection<T> content, Pageable pageable) {
+        if (content instanceof List && content instanceof RandomAccess
+                && pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            // 不排序时直接截取
+            List<T> list = (List<T>) content;
+            int pageSize = Math.max(1, pageable.getPageSize());
+            int from = (int) Math.min(pageable.getOffset(), list.size());
+            int to = (int) Math.min((long) from + pageSize, list.size());
+            return new SliceImpl<>(new ArrayList<>(list.subList(from, to)), pageable, to < list.size());
+        }
+        return slice(content.iterator(), pageable);
+    }
+
+    /**
+     * 过滤后切片，不排序时得到(pageSize + 1)个满足条件的元素即停止遍历
+     *
+     * @param content  内容
+     * @param filter   过滤条件
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 切片结果
+     * @see #slice(Iterator, Pageable)
+     */
+    public static <T> Slice<T> slice(Collection<T> content, Predicate<? super T> filter, Pageable pageable) {
+        return slice(new FilterIterator<>(content.iterator(), filter), pageable);
+    }
+
+    /**
+     * 根据分页信息将{@link Stream}包装为{@link Slice}，不计算总数。
+     * 不排序时最多读取(offset + pageSize + 1)个元素，适用于惰性、经过过滤的流 <br/>
+     * 流由调用方负责关闭
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 切片结果
+     * @see #slice(Iterator, Pageable)
+     */
+    public static <T> Slice<T> slice(Stream<T> content, Pageable pageable) {
+        return slice(content.iterator(), pageable);
+    }
+
+    /**
+     * 根据分页信息将{@link Iterator}包装为{@link Slice}，不计算总数。
+     * 多读取一个元素判断是否有下一页：不排序时最多读取(offset + pageSize + 1)个元素，
+     * 排序时需要读取全部元素，但只保留前(offset + pageSize + 1)个
+     *
+     * @param content  内容
+     * @param pageable 分页
+     * @param <T>      泛型
+     * @return 切片结果
+     */
+    public static <T> Slice<T> slice(Iterator<T> content, Pageable pageable) {
+        Long seed = randomSeed(pageable.getSort());
+        if (null != seed) {
+            // 随机排序需要知道总数
+            List<T> list = new ArrayList<>();
+            content.forEachRemaining(list::add);
+            int from = (int) Math.min(pageable.getOffset(), list.size());
+            int to = (int) Math.min((long) from + Math.max(1, pageable.getPageSize()), list.size());
+            return new SliceImpl<>(randomPick(list, seed, new int[]{from, to}), pageable, to < list.size());
+        }
+        PageCollector<T> collector = new PageCollector<>(pageable, true);
+        while (!collector.isFull() && content.hasNext()) {
+            collector.accept(content.next());
+        }
+        return collector.toSlice();
+    }
+
     private PageWrapper() {
     }
 
+    /**
+     * 所需元素数(offset + pageSize)不超过总数的 1/TOP_K_RATIO 时使用TopK选择代替全量排序
+     */
+    private static final int TOP_K_RATIO = 4;
+
     private static final Map<Class<?>, Map<String, Method>> CLAZZ_GETTERS = new ConcurrentHashMap<>(256);
 
+    private static final Map<Class<?>, Map<String, PropertyAccessor>> CLAZZ_ACCESSORS = new ConcurrentHashMap<>(256);
+
     /**
-     * 根据分页排序信息将内容排序
+     * 解析随机排序的种子，种子不是整数时使用其hashCode
      *
-     * @param content 内容
-     * @param sort    分页信息
+     * @return 第一个排序属性不是随机排序时返回null
      */
-    private static <T> void sortContent(List<T> content, Sort sort) {
-        if (null == content || content.size() == 0) {
-            return;
+    @Nullable
+    static Long randomSeed(@Nullable Sort sort) {
+        if (null == sort || sort.isUnsorted()) {
+            return null;
+        }
+        String property = sort.iterator().next().getProperty();
+        if (!property.startsWith(RANDOM_SORT_PREFIX)) {
+            return null;
+        }
+        String seed = property.substring(RANDOM_SORT_PREFIX.length());
+        try {
+            return Long.parseLong(seed);
+        } catch (NumberFormatException ex) {
+            return (long) seed.hashCode();
+        }
+    }
+
+    /**
+     * 按伪随机排列分页，可随机访问的List不复制
+     */
+    private static <T> Page<T> randomPage(Collection<T> content, Pageable pageable, long seed) {
+        List<T> list = content instanceof List && content instanceof RandomAccess ?
+                (List<T>) content : new ArrayList<>(content);
+        Pageable reasonablePage = rationalization(list.size(), pageable);
+        if (list.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), reasonablePage, 0);
+        }
+        return new PageImpl<>(randomPick(list, seed, sliceBounds(list.size(), reasonablePage)),
+                reasonablePage, list.size());
+    }
+
+    /**
+     * 取出伪随机排列中[bounds[0], bounds[1])位置的元素
+     */
+    static <T> List<T> randomPick(List<T> list, long seed, int[] bounds) {
+        List<T> subList = new ArrayList<>(bounds[1] - bounds[0]);
+        for (int i = bounds[0]; i < bounds[1]; i++) {
+            subList.add(list.get(RandomSubListUtils.permute(seed, list.size(), i)));
+        }
+        return subList;
+    }
+
+    /**
+     * 获取class指定属性的读取器，Getter的读取器按需编译并缓存，支持以"."分隔的嵌套属性
+     *
+     * @param clazz    类
+     * @param property 属性名
+     * @return 读取器，属性不存在时返回null
+     */
+    @Nullable
+    static PropertyAccessor findAccessor(Class<?> clazz, String property) {
+        int dot = property.indexOf('.');
+        if (dot > 0) {
+            return findPathAccessor(clazz, property, dot);
+        }
+        Map<String, Method> getters = CLAZZ_GETTERS.computeIfAbsent(clazz, PageWrapper::findAllGetters);
+        Method getter = getters.get(property);
+        if (null == getter) {
+            return null;
+        }
+        return CLAZZ_ACCESSORS.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(property, p -> PropertyAccessor.of(getter));
+    }
+
+    /**
+     * 嵌套属性(如customer.address.city)按每一级Getter的声明返回类型逐级解析，
+     * 组合为任意一级为NULL时返回NULL的读取器。 <br/>
+     * 路径可能来自请求参数，组合的读取器不缓存，缓存大小只与声明的Getter数有关
+     */
+    @Nullable
+    private static PropertyAccessor findPathAccessor(Class<?> clazz, String path, int dot) {
+        PropertyAccessor head = findAccessor(clazz, path.substring(0, dot));
+        if (null == head || head.getType().isPrimitive()) {
+            return null;
+        }
+        PropertyAccessor tail = findAccessor(head.getType(), path.substring(dot + 1));
+        return null == tail ? null : PropertyAccessor.chain(head, tail);
+    }
+
+    /**
+     * 获取集合中第一个非NULL元素的类
+     */
+    @Nullable
+    private static Class<?> sampleClass(Collection<?> content) {
+        for (Object element : content) {
+            if (null != element) {
+                return element.getClass();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据分页排序信息构造比较器
+     *
+     * @param clazz 元素类
+     * @param sort  排序信息
+     * @return 比较器，无需排序时返回null
+     */
+    @Nullable
+    static <T> Comparator<T> comparator(@Nullable Class<?> clazz, @Nullable Sort sort) {
+        List<GetterComparator> comparators = resolveComparators(clazz, sort);
+        return comparators.isEmpty() ? null : new ComparatorChain(comparators);
+    }
+
+    /**
+     * 根据分页排序信息构造各排序属性的比较器
+     *
+     * @param clazz 元素类
+     * @param sort  排序信息
+     * @return 各排序属性的比较器，无需排序时为空
+     */
+    private static List<GetterComparator> resolveComparators(@Nullable Class<?> clazz, @Nullable Sort sort) {
+        if (null == clazz) {
+            return Collections.emptyList();
         }
         if (null == sort || !sort.iterator().hasNext()) {
-            return;
+            return Collections.emptyList();
         }
 
         // 获取、筛选排序信息
-        Map<String, Method> getters = CLAZZ_GETTERS.computeIfAbsent(
-                content.get(0).getClass(), PageWrapper::findAllGetters);
+        List<GetterComparator> comparators = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            PropertyAccessor accessor = findAccessor(clazz, order.getProperty());
+            if (null != accessor) {
+                comparators.add(GetterComparator.of(order, accessor));
+            }
+        }
+        return comparators;
+    }
 
-        List<GetterComparator> comparators = sort.stream()
-                .filter(o -> getters.containsKey(o.getProperty()))
-                .map(order -> new GetterComparator(order, getters.get(order.getProperty())))
-                .collect(Collectors.toList());
+    /**
+     * 使用比较器排序并截取分页内容
+     */
+    private static <T> List<T> sortByComparator(List<T> list, Comparator<T> comparator,
+                                                Pageable pageable, PageWrapOptions options) {
+        int[] bounds = sliceBounds(list.size(), pageable);
+        if ((long) bounds[1] * TOP_K_RATIO <= list.size()) {
+            // 靠前的页只需选出前(offset + pageSize)个元素再排序
+            return TopKSelector.select(list, comparator, bounds[1]).subList(bounds[0], bounds[1]);
+        }
+        if (options.isParallel(list.size()) || list instanceof SnapshotList.Snapshot) {
+            // 快照不可修改，与并行排序一样排序下标
+            int[] indexes = IndexSorts.identity(list.size());
+            IndexComparator indexComparator = (i, j) -> comparator.compare(list.get(i), list.get(j));
+            if (options.isParallel(list.size())) {
+                IndexSorts.parallelSort(indexes, indexComparator, options.getPool(), options.getParallelism());
+            } else {
+                IndexSorts.sort(indexes, indexComparator);
+            }
+            return pick(list, indexes, bounds);
+        }
+        list.sort(comparator);
+        return sliceContent(list, pageable);
+    }
 
-        if (comparators.isEmpty()) {
-            return;
+    /**
+     * 提取排序键后对下标排序，只取出分页范围内的元素
+     */
+    private static <T> List<T> sortByKeys(List<T> list, List<GetterComparator> comparators,
+                                          Pageable pageable, PageWrapOptions options) {
+        SortKeys keys = extractKeys(list, comparators);
+
+        int[] bounds = sliceBounds(list.size(), pageable);
+        int[] indexes;
+        if ((long) bounds[1] * TOP_K_RATIO <= list.size()) {
+            indexes = IndexSorts.select(list.size(), bounds[1], keys);
+        } else {
+            indexes = sortIndexes(keys, options);
         }
+        return pick(list, indexes, bounds);
+    }
 
-        // 排序
-        content.sort(new ComparatorChain(comparators));
+    /**
+     * 提取排序键
+     *
+     * @param list 内容
+     * @param sort 排序信息
+     * @return 排序键，无需排序时返回null
+     */
+    @Nullable
+    static SortKeys extractKeys(List<?> list, @Nullable Sort sort) {
+        List<GetterComparator> comparators = resolveComparators(sampleClass(list), sort);
+        return comparators.isEmpty() ? null : extractKeys(list, comparators);
+    }
+
+    /**
+     * 获取排序键的结构(不提取任何元素)，用于比较单个元素的排序键
+     *
+     * @param list 内容
+     * @param sort 排序信息
+     * @return 排序键结构，无需排序时返回null
+     */
+    @Nullable
+    static SortKeys keySchema(List<?> list, @Nullable Sort sort) {
+        List<GetterComparator> comparators = resolveComparators(sampleClass(list), sort);
+        return comparators.isEmpty() ? null : extractKeys(Collections.emptyList(), comparators);
+    }
+
+    private static SortKeys extractKeys(List<?> list, List<GetterComparator> comparators) {
+        List<Sort.Order> orders = new ArrayList<>(comparators.size());
+        List<PropertyAccessor> accessors = new ArrayList<>(comparators.size());
+        for (GetterComparator comparator : comparators) {
+            orders.add(comparator.order);
+            accessors.add(comparator.accessor);
+        }
+        return SortKeys.extract(list, orders, accessors);
+    }
+
+    /**
+     * 根据排序键得到排好序的全部下标
+     *
+     * @param keys    排序键
+     * @param options 分页选项，决定是否并行
+     * @return 排好序的下标
+     */
+    static int[] sortIndexes(SortKeys keys, PageWrapOptions options) {
+        int[] indexes = IndexSorts.identity(keys.size());
+        if (options.isParallel(keys.size())) {
+            IndexSorts.parallelSort(indexes, keys, options.getPool(), options.getParallelism());
+        } else {
+            IndexSorts.sort(indexes, keys);
+        }
+        return indexes;
+    }
+
+    /**
+     * 按排好序的下标取出[start, end)范围内的元素
+     */
+    static <T> List<T> pick(List<T> list, int[] indexes, int[] bounds) {
+        List<T> result = new ArrayList<>(bounds[1] - bounds[0]);
+        for (int i = bounds[0]; i < bounds[1]; i++) {
+            result.add(list.get(indexes[i]));
+        }
+        return result;
     }
 
     /**
      * 合理化分页信息
      *
+     * @param size     内容总数
      * @param pageable 输入的分页信息
      * @return 调整后的合理化信息
      */
-    private static Pageable rationalization(List content, Pageable pageable) {
-        Optional<List> optList = Optional.ofNullable(content);
+    static Pageable rationalization(long size, @Nullable Pageable pageable) {
         Optional<Pageable> optPageable = Optional.ofNullable(pageable);
 
         int pageNumber = optPageable.map(Pageable::getPageNumber).orElse(0);
         int pageSize = optPageable.map(Pageable::getPageSize)
-                .orElse(optList.map(List::size).orElse(10));
-        int size = optList.map(List::size).orElse(0);
+                .orElse((int) Math.min(size, Integer.MAX_VALUE));
 
         // 每页大小至少为1
         pageSize = pageSize < 1 ? 1 : pageSize;
@@ -105,7 +529,7 @@ public final class PageWrapper {
         pageNumber = pageNumber < 0 ? 0 : pageNumber;
 
         return PageRequest.of(pageNumber, pageSize,
-                optPageable.map(Pageable::getSort).orElse(null));
+                optPageable.map(Pageable::getSort).orElse(Sort.unsorted()));
     }
 
     /**
@@ -123,21 +547,35 @@ public final class PageWrapper {
             return content;
         }
 
+        int[] bounds = sliceBounds(content.size(), pageable);
+        if (bounds[0] == 0 && bounds[1] == content.size()) {
+            return content;
+        }
+        return content.subList(bounds[0], bounds[1]);
+    }
+
+    /**
+     * 计算截取的起始、结尾序号
+     *
+     * @param size     内容总数
+     * @param pageable 分页信息
+     * @return 起始序号与结尾序号(不包含结尾)
+     */
+    static int[] sliceBounds(int size, final Pageable pageable) {
         int pageSize = pageable.getPageSize();
         if (pageable.getOffset() > Integer.MAX_VALUE) {
             throw new UnsupportedOperationException("Offset too large");
         }
         // pageNumber * pageSize
         int offset = (int) pageable.getOffset();
-        int size = content.size();
 
         if (offset == 0 && pageSize >= size) {
-            return content;
+            return new int[]{0, size};
         }
 
         // 子列表的起始、结尾序号（不包含结尾）
         int start = offset;
-        int end = offset + pageSize;
+        int end = (int) Math.min((long) offset + pageSize, Integer.MAX_VALUE);
 
         // 最后一页的开始
         int lastStart = size - pageSize;
@@ -151,7 +589,7 @@ public final class PageWrapper {
             end = end > size ? size : end;
         }
 
-        return content.subList(start, end);
+        return new int[]{start, end};
     }
 
     /**
@@ -176,6 +614,11 @@ public final class PageWrapper {
                 continue;
             }
 
+            // 协变返回类型生成的桥接方法返回类型不准确
+            if (method.isBridge()) {
+                continue;
+            }
+
             final String methodName = method.getName();
 
             // try "get"
@@ -195,31 +638,43 @@ public final class PageWrapper {
 
     private static class GetterComparator implements Comparator {
 
-        private final Sort.Order order;
+        final Sort.Order order;
 
-        private final Method getter;
+        final PropertyAccessor accessor;
 
         private final boolean comparable;
 
-        GetterComparator(Sort.Order order, Method getter) {
+        final boolean descending;
+
+        GetterComparator(Sort.Order order, PropertyAccessor accessor) {
             this.order = order;
-            this.getter = getter;
-            this.comparable = Comparable.class.isAssignableFrom(getter.getReturnType());
-            // 防止无法读取内部类
-            this.getter.setAccessible(true);
+            this.accessor = accessor;
+            Class<?> type = accessor.getType();
+            // 基本类型读取后装箱，可以直接比较
+            this.comparable = type.isPrimitive() || Comparable.class.isAssignableFrom(type);
+            this.descending = order.getDirection() == Sort.Direction.DESC;
+        }
+
+        /**
+         * 根据Getter的返回类型选择比较器，基本类型的比较不装箱
+         */
+        static GetterComparator of(Sort.Order order, PropertyAccessor accessor) {
+            Class<?> type = accessor.getType();
+            if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+                return new IntGetterComparator(order, accessor);
+            } else if (type == long.class) {
+                return new LongGetterComparator(order, accessor);
+            } else if (type == double.class || type == float.class) {
+                return new DoubleGetterComparator(order, accessor);
+            } else if (type == boolean.class) {
+                return new BooleanGetterComparator(order, accessor);
+            }
+            return new GetterComparator(order, accessor);
         }
 
         @Override
         public int compare(Object o1, Object o2) {
-            Object val1 = null, val2 = null;
-            try {
-                val1 = getter.invoke(o1);
-            } catch (Exception ignored) {
-            }
-            try {
-                val2 = getter.invoke(o2);
-            } catch (Exception ignored) {
-            }
+            Object val1 = accessor.get(o1), val2 = accessor.get(o2);
 
             if (!comparable) {
                 if (null != val1) {
@@ -293,6 +748,128 @@ public final class PageWrapper {
         }
     }
 
+    private static final class IntGetterComparator extends GetterComparator {
+
+        IntGetterComparator(Sort.Order order, PropertyAccessor accessor) {
+            super(order, accessor);
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            if (null != o1 && null != o2) {
+                try {
+                    int result = Integer.compare(accessor.readInt(o1), accessor.readInt(o2));
+                    return descending ? -result : result;
+                } catch (Exception ignored) {
+                    // 读取失败时按NULL处理
+                }
+            }
+            return super.compare(o1, o2);
+        }
+    }
+
+    private static final class LongGetterComparator extends GetterComparator {
+
+        LongGetterComparator(Sort.Order order, PropertyAccessor accessor) {
+            super(order, accessor);
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            if (null != o1 && null != o2) {
+                try {
+                    int result = Long.compare(accessor.readLong(o1), accessor.readLong(o2));
+                    return descending ? -result : result;
+                } catch (Exception ignored) {
+                    // 读取失败时按NULL处理
+                }
+            }
+            return super.compare(o1, o2);
+        }
+    }
+
+    private static final class DoubleGetterComparator extends GetterComparator {
+
+        DoubleGetterComparator(Sort.Order order, PropertyAccessor accessor) {
+            super(order, accessor);
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            if (null != o1 && null != o2) {
+                try {
+                    int result = Double.compare(accessor.readDouble(o1), accessor.readDouble(o2));
+                    return descending ? -result : result;
+                } catch (Exception ignored) {
+                    // 读取失败时按NULL处理
+                }
+            }
+            return super.compare(o1, o2);
+        }
+    }
+
+    private static final class BooleanGetterComparator extends GetterComparator {
+
+        BooleanGetterComparator(Sort.Order order, PropertyAccessor accessor) {
+            super(order, accessor);
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            if (null != o1 && null != o2) {
+                try {
+                    int result = Boolean.compare(accessor.readBoolean(o1), accessor.readBoolean(o2));
+                    return descending ? -result : result;
+                } catch (Exception ignored) {
+                    // 读取失败时按NULL处理
+                }
+            }
+            return super.compare(o1, o2);
+        }
+    }
+
+    /**
+     * 按需过滤的迭代器
+     */
+    private static final class FilterIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> iterator;
+
+        private final Predicate<? super T> filter;
+
+        private T next;
+
+        private boolean ready;
+
+        FilterIterator(Iterator<T> iterator, Predicate<? super T> filter) {
+            this.iterator = iterator;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && iterator.hasNext()) {
+                T element = iterator.next();
+                if (filter.test(element)) {
+                    next = element;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            T element = next;
+            next = null;
+            return element;
+        }
+    }
+
     private static class ComparatorChain<T> implements Comparator<T> {
 
         private final List<Comparator<T>> comparators;
@@ -0,0 +1,257 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 可重复分页的数据视图，创建时复制一次数据，每种排序只排序一次并缓存排好序的下标，
+ * 之后同一排序的任意页都以O(pageSize)返回。分页结果与{@link PageWrapper#wrap(Collection, Pageable)}一致 <br/>
+ * 缓存的排序种类有上限，超出时淘汰最久未使用的排序 <br/>
+ * 数据变化时调用{@link #refresh(Collection)}替换数据，元素属性变化时调用{@link #invalidate()}清空缓存 <br/>
+ * 线程安全，并发读取同一种未缓存的排序时只排序一次
+ *
+ * @author tony
+ */
+public final class PagedView<T> {
+
+    /**
+     * 默认缓存的排序种类数
+     */
+    public static final int DEFAULT_MAX_CACHED_SORTS = 16;
+
+    private final int maxCachedSorts;
+
+    private final PageWrapOptions options;
+
+    private volatile Snapshot<T> snapshot;
+
+    private PagedView(Collection<T> content, int maxCachedSorts, PageWrapOptions options) {
+        if (maxCachedSorts < 1) {
+            throw new IllegalArgumentException("max cached sorts can't be less than 1");
+        }
+        this.maxCachedSorts = maxCachedSorts;
+        this.options = options;
+        this.snapshot = new Snapshot<>(content, 0, maxCachedSorts);
+    }
+
+    public static <T> PagedView<T> of(Collection<T> content) {
+        return new PagedView<>(content, DEFAULT_MAX_CACHED_SORTS, PageWrapOptions.DEFAULT);
+    }
+
+    /**
+     * @param content        内容
+     * @param maxCachedSorts 缓存的排序种类数
+     * @param options        分页选项，用于开启并行排序
+     */
+    public static <T> PagedView<T> of(Collection<T> content, int maxCachedSorts, PageWrapOptions options) {
+        return new PagedView<>(content, maxCachedSorts, options);
+    }
+
+    /**
+     * 分页，规则与{@link PageWrapper#wrap(Collection, Pageable)}相同
+     *
+     * @param pageable 分页
+     * @return 分页结果
+     */
+    public Page<T> page(@Nullable Pageable pageable) {
+        if (null != pageable && pageable.isUnpaged()) {
+            throw new UnsupportedOperationException("Not support unpaged!");
+        }
+        Snapshot<T> current = this.snapshot;
+        List<T> content = current.content;
+        Pageable reasonablePage = PageWrapper.rationalization(content.size(), pageable);
+        if (content.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), reasonablePage, 0);
+        }
+
+        int[] bounds = PageWrapper.sliceBounds(content.size(), reasonablePage);
+        Long seed = PageWrapper.randomSeed(reasonablePage.getSort());
+        if (null != seed) {
+            return new PageImpl<>(PageWrapper.randomPick(content, seed, bounds), reasonablePage, content.size());
+        }
+        int[] indexes = current.indexes(reasonablePage.getSort(), options);
+        List<T> subList = null == indexes ?
+                content.subList(bounds[0], bounds[1]) :
+                PageWrapper.pick(content, indexes, bounds);
+        return new PageImpl<>(subList, reasonablePage, content.size());
+    }
+
+    /**
+     * 游标分页，根据上一页最后一行的排序键二分查找下一页的开始位置，
+     * 不论翻到多深都是O(log n + size)。 <br/>
+     * 排序键相同的行按在数据中的先后区分，数据刷新后这个先后可能变化，
+     * 在排序中加入唯一属性(如id)可以保证刷新前后的游标不重复、不遗漏。 <br/>
+     * 不支持随机排序({@link PageWrapper#randomSort(long)})
+     *
+     * @param sort              排序
+     * @param continuationToken 上一页返回的游标，第一页为null
+     * @param size              每页大小
+     * @return 分页结果
+     */
+    public KeysetSlice<T> seek(Sort sort, @Nullable String continuationToken, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size can't be less than 1");
+        }
+        if (null != PageWrapper.randomSeed(sort)) {
+            throw new IllegalArgumentException("Random sort is not supported by keyset pagination");
+        }
+        Snapshot<T> current = this.snapshot;
+        List<T> content = current.content;
+        int[] indexes = current.indexes(sort, options);
+        SortKeys keys = null == indexes ? null : PageWrapper.keySchema(content, sort);
+
+        int start = 0;
+        if (null != continuationToken) {
+            KeysetToken token = KeysetToken.decode(continuationToken, sort, keys);
+            // 第一个排在游标之后的位置
+            int lo = 0, hi = content.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int row = null == indexes ? mid : indexes[mid];
+                int result = null == keys ? 0 : keys.compareKeys(keys.keyOf(content.get(row)), token.key);
+                if (result == 0) {
+                    result = Integer.compare(row, token.index);
+                }
+                if (result <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            start = lo;
+        }
+
+        int end = (int) Math.min((long) start + size, content.size());
+        int[] bounds = {start, end};
+        List<T> subList = null == indexes ?
+                content.subList(start, end) :
+                PageWrapper.pick(content, indexes, bounds);
+
+        String nextToken = null;
+        if (end < content.size()) {
+            int lastRow = null == indexes ? end - 1 : indexes[end - 1];
+            Object[] lastKey = null == keys ? new Object[0] : keys.keyOf(content.get(lastRow));
+            nextToken = KeysetToken.encode(sort, keys, lastKey, lastRow);
+        }
+        return new KeysetSlice<>(subList, PageRequest.of(start / size, size, sort), nextToken);
+    }
+
+    /**
+     * 替换数据，清空所有缓存的排序
+     *
+     * @param content 新的内容
+     */
+    public void refresh(Collection<T> content) {
+        synchronized (this) {
+            this.snapshot = new Snapshot<>(content, snapshot.version + 1, maxCachedSorts);
+        }
+    }
+
+    /**
+     * 数据不变但元素的属性发生变化时，清空所有缓存的排序
+     */
+    public void invalidate() {
+        synchronized (this) {
+            this.snapshot = new Snapshot<>(snapshot.content, snapshot.version + 1, maxCachedSorts);
+        }
+    }
+
+    /**
+     * @return 数据版本，每次刷新或清空缓存后加一
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return 数据总数
+     */
+    public int size() {
+        return snapshot.content.size();
+    }
+
+    /**
+     * @return 当前缓存的排序种类数
+     */
+    public int getCachedSorts() {
+        Snapshot<T> current = this.snapshot;
+        synchronized (current.cache) {
+            return current.cache.size();
+        }
+    }
+
+    private static final class Snapshot<T> {
+
+        /**
+         * 不需要排序(排序属性都不存在)时缓存的值
+         */
+        private static final int[] UNSORTED = new int[0];
+
+        private final List<T> content;
+
+        private final long version;
+
+        private final Map<Sort, CompletableFuture<int[]>> cache;
+
+        Snapshot(Collection<T> content, long version, int maxCachedSorts) {
+            this.content = Collections.unmodifiableList(new ArrayList<>(content));
+            this.version = version;
+            this.cache = new LinkedHashMap<Sort, CompletableFuture<int[]>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Sort, CompletableFuture<int[]>> eldest) {
+                    return size() > maxCachedSorts;
+                }
+            };
+        }
+
+        /**
+         * 获取排好序的下标
+         *
+         * @return 排好序的下标，不需要排序时返回null
+         */
+        @Nullable
+        int[] indexes(Sort sort, PageWrapOptions options) {
+            if (sort.isUnsorted()) {
+                return null;
+            }
+            CompletableFuture<int[]> future;
+            boolean owner = false;
+            synchronized (cache) {
+                future = cache.get(sort);
+                if (null == future) {
+                    future = new CompletableFuture<>();
+                    cache.put(sort, future);
+                    owner = true;
+                }
+            }
+            if (owner) {
+                // 在锁外排序，其它读取同一排序的线程等待结果
+                try {
+                    SortKeys keys = PageWrapper.extractKeys(content, sort);
+                    future.complete(null == keys ? UNSORTED : PageWrapper.sortIndexes(keys, options));
+                } catch (RuntimeException | Error ex) {
+                    synchronized (cache) {
+                        cache.remove(sort, future);
+                    }
+                    future.completeExceptionally(ex);
+                    throw ex;
+                }
+            }
+            int[] indexes = future.join();
+            return indexes == UNSORTED ? null : indexes;
+        }
+    }
+
+}
@@ -0,0 +1,328 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 属性读取器，通过{@link LambdaMetafactory}将Getter编译为函数调用，
+ * 无法访问的类(如非公开的内部类)退化为反射调用 <br/>
+ * 基本类型的Getter提供不装箱的读取方法 <br/>
+ * 嵌套属性由逐级的读取器组合而成
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked"})
+abstract class PropertyAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * 嵌套属性中间某一级为NULL时不装箱的读取方法抛出的异常，不记录调用栈
+     */
+    private static final Exception NULL_HOP = new Exception("Intermediate property is null", null, false, false) {
+    };
+
+    private final Method getter;
+
+    private PropertyAccessor(Method getter) {
+        this.getter = getter;
+    }
+
+    /**
+     * 为Getter生成读取器
+     *
+     * @param getter getter方法
+     * @return 读取器
+     */
+    static PropertyAccessor of(Method getter) {
+        Class<?> type = getter.getReturnType();
+        if (isCompilable(getter)) {
+            try {
+                MethodHandle handle = LOOKUP.unreflect(getter);
+                if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+                    return new IntAccessor(getter, (ToIntFunction<Object>)
+                            metafactory(handle, ToIntFunction.class, "applyAsInt", int.class));
+                } else if (type == long.class) {
+                    return new LongAccessor(getter, (ToLongFunction<Object>)
+                            metafactory(handle, ToLongFunction.class, "applyAsLong", long.class));
+                } else if (type == double.class || type == float.class) {
+                    return new DoubleAccessor(getter, (ToDoubleFunction<Object>)
+                            metafactory(handle, ToDoubleFunction.class, "applyAsDouble", double.class));
+                } else if (type == boolean.class) {
+                    return new BooleanAccessor(getter, (Predicate<Object>)
+                            metafactory(handle, Predicate.class, "test", boolean.class));
+                } else {
+                    return new FunctionAccessor(getter, (Function<Object, Object>)
+                            metafactory(handle, Function.class, "apply", Object.class));
+                }
+            } catch (Throwable ignored) {
+                // 编译失败使用反射
+            }
+        }
+        return new ReflectiveAccessor(getter);
+    }
+
+    /**
+     * 组合嵌套属性的读取器
+     *
+     * @param head 第一级属性的读取器
+     * @param tail 之后各级属性的读取器
+     * @return 读取器，类型为最后一级属性的类型
+     */
+    static PropertyAccessor chain(PropertyAccessor head, PropertyAccessor tail) {
+        return new ChainAccessor(head, tail);
+    }
+
+    /**
+     * 当前类能直接访问且类加载器可见时才能编译
+     */
+    private static boolean isCompilable(Method getter) {
+        ClassLoader classLoader = PropertyAccessor.class.getClassLoader();
+        return isVisible(getter.getDeclaringClass(), classLoader)
+                && isVisible(getter.getReturnType(), classLoader);
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader classLoader) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || ClassUtils.isVisible(type, classLoader);
+    }
+
+    private static Object metafactory(MethodHandle handle, Class<?> functionType,
+                                      String methodName, Class<?> returnType) throws Throwable {
+        // 基本类型的返回值拓宽到函数接口的返回类型，如short -> int
+        MethodType instantiatedType = returnType.isPrimitive() ?
+                handle.type().changeReturnType(returnType) : handle.type();
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, methodName,
+                MethodType.methodType(functionType),
+                MethodType.methodType(returnType, Object.class),
+                handle, instantiatedType);
+        return site.getTarget().invoke();
+    }
+
+    Method getGetter() {
+        return getter;
+    }
+
+    Class<?> getType() {
+        return getter.getReturnType();
+    }
+
+    /**
+     * 读取属性值，目标为NULL或读取失败时返回NULL
+     */
+    final Object get(Object target) {
+        if (null == target) {
+            return null;
+        }
+        try {
+            return read(target);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取属性值，失败时抛出异常
+     */
+    abstract Object read(Object target) throws Exception;
+
+    int readInt(Object target) throws Exception {
+        Object val = read(target);
+        return val instanceof Character ? (Character) val : ((Number) val).intValue();
+    }
+
+    long readLong(Object target) throws Exception {
+        return ((Number) read(target)).longValue();
+    }
+
+    double readDouble(Object target) throws Exception {
+        return ((Number) read(target)).doubleValue();
+    }
+
+    boolean readBoolean(Object target) throws Exception {
+        return (Boolean) read(target);
+    }
+
+    private static final class FunctionAccessor extends PropertyAccessor {
+
+        private final Function<Object, Object> function;
+
+        FunctionAccessor(Method getter, Function<Object, Object> function) {
+            super(getter);
+            this.function = function;
+        }
+
+        @Override
+        Object read(Object target) {
+            return function.apply(target);
+        }
+    }
+
+    private static final class IntAccessor extends PropertyAccessor {
+
+        private final ToIntFunction<Object> function;
+
+        IntAccessor(Method getter, ToIntFunction<Object> function) {
+            super(getter);
+            this.function = function;
+        }
+
+        @Override
+        Object read(Object target) {
+            int val = function.applyAsInt(target);
+            Class<?> type = getType();
+            if (type == char.class) {
+                return (char) val;
+            } else if (type == short.class) {
+                return (short) val;
+            } else if (type == byte.class) {
+                return (byte) val;
+            }
+            return val;
+        }
+
+        @Override
+        int readInt(Object target) {
+            return function.applyAsInt(target);
+        }
+    }
+
+    private static final class LongAccessor extends PropertyAccessor {
+
+        private final ToLongFunction<Object> function;
+
+        LongAccessor(Method getter, ToLongFunction<Object> function) {
+            super(getter);
+            this.function = function;
+        }
+
+        @Override
+        Object read(Object target) {
+            return function.applyAsLong(target);
+        }
+
+        @Override
+        long readLong(Object target) {
+            return function.applyAsLong(target);
+        }
+    }
+
+    private static final class DoubleAccessor extends PropertyAccessor {
+
+        private final ToDoubleFunction<Object> function;
+
+        DoubleAccessor(Method getter, ToDoubleFunction<Object> function) {
+            super(getter);
+            this.function = function;
+        }
+
+        @Override
+        Object read(Object target) {
+            double val = function.applyAsDouble(target);
+            return getType() == float.class ? (Object) (float) val : (Object) val;
+        }
+
+        @Override
+        double readDouble(Object target) {
+            return function.applyAsDouble(target);
+        }
+    }
+
+    private static final class BooleanAccessor extends PropertyAccessor {
+
+        private final Predicate<Object> function;
+
+        BooleanAccessor(Method getter, Predicate<Object> function) {
+            super(getter);
+            this.function = function;
+        }
+
+        @Override
+        Object read(Object target) {
+            return function.test(target);
+        }
+
+        @Override
+        boolean readBoolean(Object target) {
+            return function.test(target);
+        }
+    }
+
+    private static final class ChainAccessor extends PropertyAccessor {
+
+        private final PropertyAccessor head;
+
+        private final PropertyAccessor tail;
+
+        ChainAccessor(PropertyAccessor head, PropertyAccessor tail) {
+            super(tail.getGetter());
+            this.head = head;
+            this.tail = tail;
+        }
+
+        private Object owner(Object target) throws Exception {
+            Object owner = head.read(target);
+            if (null == owner) {
+                throw NULL_HOP;
+            }
+            return owner;
+        }
+
+        @Override
+        Object read(Object target) throws Exception {
+            Object owner = head.read(target);
+            return null == owner ? null : tail.read(owner);
+        }
+
+        @Override
+        int readInt(Object target) throws Exception {
+            return tail.readInt(owner(target));
+        }
+
+        @Override
+        long readLong(Object target) throws Exception {
+            return tail.readLong(owner(target));
+        }
+
+        @Override
+        double readDouble(Object target) throws Exception {
+            return tail.readDouble(owner(target));
+        }
+
+        @Override
+        boolean readBoolean(Object target) throws Exception {
+            return tail.readBoolean(owner(target));
+        }
+    }
+
+    private static final class ReflectiveAccessor extends PropertyAccessor {
+
+        ReflectiveAccessor(Method getter) {
+            super(getter);
+            try {
+                // 防止无法读取内部类
+                getter.setAccessible(true);
+            } catch (RuntimeException ignored) {
+            }
+        }
+
+        @Override
+        Object read(Object target) throws Exception {
+            return getGetter().invoke(target);
+        }
+    }
+
+}
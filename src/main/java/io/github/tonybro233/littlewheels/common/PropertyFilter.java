@@ -0,0 +1,155 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 按属性名过滤，与{@link PageWrapper}共用Getter缓存，配合{@link PageWrapper#wrap(Collection, Predicate, org.springframework.data.domain.Pageable)}使用 <br/>
+ * 条件值会转换为属性的声明类型，可以直接使用HTTP请求参数中的字符串，如
+ * {@code PropertyFilter.between("createTime", "2020-01-01T00:00:00", null)}；
+ * 有静态parse(CharSequence)方法的类型(如java.time)调用parse，其余使用Spring的类型转换 <br/>
+ * NULL元素与属性值为NULL的元素不满足任何条件，属性不存在时抛出{@link IllegalArgumentException}
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public final class PropertyFilter implements Predicate<Object> {
+
+    private final String property;
+
+    private final Matcher matcher;
+
+    private final Map<Class<?>, Predicate<Object>> resolved = new ConcurrentHashMap<>(4);
+
+    private PropertyFilter(String property, Matcher matcher) {
+        this.property = Objects.requireNonNull(property, "property can't be null");
+        this.matcher = matcher;
+    }
+
+    /**
+     * 属性等于指定值
+     *
+     * @param property 属性名
+     * @param value    值
+     */
+    public static PropertyFilter eq(String property, Object value) {
+        Objects.requireNonNull(value, "value can't be null");
+        return new PropertyFilter(property, type -> {
+            Object target = convert(value, type);
+            return val -> target.equals(val);
+        });
+    }
+
+    /**
+     * 属性等于任一指定值
+     *
+     * @param property 属性名
+     * @param values   值
+     */
+    public static PropertyFilter in(String property, Collection<?> values) {
+        List<Object> copy = new ArrayList<>(values);
+        return new PropertyFilter(property, type -> {
+            Set<Object> targets = new HashSet<>(copy.size() * 2);
+            for (Object value : copy) {
+                if (null != value) {
+                    targets.add(convert(value, type));
+                }
+            }
+            return targets::contains;
+        });
+    }
+
+    /**
+     * 属性在指定范围内(包含边界)
+     *
+     * @param property 属性名
+     * @param from     下界，为NULL时不限制
+     * @param to       上界，为NULL时不限制
+     */
+    public static PropertyFilter between(String property, @Nullable Object from, @Nullable Object to) {
+        return new PropertyFilter(property, type -> {
+            if (!Comparable.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("Property '" + property + "' isn't comparable");
+            }
+            Comparable lower = null == from ? null : (Comparable) convert(from, type);
+            Comparable upper = null == to ? null : (Comparable) convert(to, type);
+            return val -> (null == lower || lower.compareTo(val) <= 0)
+                    && (null == upper || upper.compareTo(val) >= 0);
+        });
+    }
+
+    @Override
+    public boolean test(Object element) {
+        if (null == element) {
+            return false;
+        }
+        return resolved.computeIfAbsent(element.getClass(), this::resolve).test(element);
+    }
+
+    private Predicate<Object> resolve(Class<?> clazz) {
+        PropertyAccessor accessor = PageWrapper.findAccessor(clazz, property);
+        if (null == accessor) {
+            throw new IllegalArgumentException("No property '" + property + "' found for " + clazz.getName());
+        }
+        Predicate<Object> predicate = matcher.match(ClassUtils.resolvePrimitiveIfNecessary(accessor.getType()));
+        return element -> {
+            Object value = accessor.get(element);
+            return null != value && predicate.test(value);
+        };
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (type.isInstance(value)) {
+            return value;
+        }
+        Object converted;
+        try {
+            // 与KeysetToken一样，字符串优先使用类型的静态parse(CharSequence)方法，java.time类型没有默认的转换器
+            Method parse = value instanceof CharSequence ?
+                    ReflectionUtils.findMethod(type, "parse", CharSequence.class) : null;
+            if (null != parse && Modifier.isStatic(parse.getModifiers())
+                    && type.isAssignableFrom(parse.getReturnType())) {
+                converted = ReflectionUtils.invokeMethod(parse, null, value);
+            } else {
+                converted = DefaultConversionService.getSharedInstance().convert(value, type);
+            }
+        } catch (ConversionException | DateTimeException ex) {
+            throw new IllegalArgumentException("Can't convert '" + value + "' to " + type.getName(), ex);
+        }
+        if (null == converted) {
+            throw new IllegalArgumentException("Can't convert '" + value + "' to " + type.getName());
+        }
+        return converted;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyFilter[" + property + "]";
+    }
+
+    /**
+     * 将条件值转换为属性的声明类型，生成属性值的判断
+     */
+    @FunctionalInterface
+    private interface Matcher {
+
+        Predicate<Object> match(Class<?> type);
+    }
+
+}
@@ -71,4 +71,65 @@ public abstract class RandomSubListUtils {
         return re;
     }
 
+    /**
+     * 由种子确定的伪随机排列，返回[0, n)的第index个位置对应的下标，
+     * 同一种子下是[0, n)上的一一映射，计算单个位置是O(1)，不需要生成整个排列 <br/>
+     * 使用4轮Feistel网络在覆盖n的最小偶数位宽上置换，结果超出n时继续置换(cycle walking)，
+     * 该位宽不超过4n，平均置换次数不超过4次
+     *
+     * @param seed  种子
+     * @param n     范围
+     * @param index 位置
+     * @return 下标
+     */
+    public static int permute(long seed, int n, int index) {
+        if (index < 0 || index >= n) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+        }
+        if (n <= 2) {
+            // 位宽为0时Feistel网络退化，直接按种子决定是否交换
+            return n == 2 && (mix(seed) & 1) == 1 ? 1 - index : index;
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        int halfBits = (bits + 1) >>> 1;
+        long x = index;
+        do {
+            x = feistel(seed, halfBits, x);
+        } while (x >= n);
+        return (int) x;
+    }
+
+    /**
+     * 获取伪随机排列中[from, to)位置对应的下标
+     *
+     * @see #permute(long, int, int)
+     */
+    public static int[] getPermutedIndexes(long seed, int n, int from, int to) {
+        int[] result = new int[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = permute(seed, n, i);
+        }
+        return result;
+    }
+
+    private static long feistel(long seed, int halfBits, long x) {
+        long mask = (1L << halfBits) - 1;
+        long left = x >>> halfBits, right = x & mask;
+        for (int round = 0; round < 4; round++) {
+            long next = left ^ (mix(seed + round * 0x9E3779B97F4A7C15L + right * 0xD1B54A32D192ED03L) & mask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * SplitMix64的混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
 }
@@ -0,0 +1,32 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * {@link SnowFlake}同一毫秒内序列号用尽时等待下一毫秒的方式
+ *
+ * @author tony
+ * @see SnowFlake.Builder#waitStrategy(SequenceWaitStrategy)
+ */
+public enum SequenceWaitStrategy {
+
+    /**
+     * 持有锁忙等，延迟最低，占用一个CPU核
+     */
+    BUSY_SPIN,
+
+    /**
+     * 持有锁忙等一段时间后每次检查前让出CPU
+     */
+    SPIN_YIELD,
+
+    /**
+     * 持有锁每次挂起约50微秒直到下一毫秒，不占用CPU，但可能晚于下一毫秒醒来
+     */
+    PARK,
+
+    /**
+     * 释放锁后挂起等待下一毫秒，再重新加锁生成。
+     * 等待期间其它线程可以进入，用尽时同样在锁外等待，不会阻塞在监视器上
+     */
+    BACKOFF
+
+}
@@ -0,0 +1,194 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * 可并发读写、以快照分页的列表。 <br/>
+ * 元素按固定大小分块存储，每次修改生成新的快照并以volatile发布：
+ * 读取快照是O(1)且无锁，写入之间互斥但不阻塞读取。 <br/>
+ * 追加元素时直接写入最后一块中当前大小之后的位置，所有已发布的快照都不会读取这些位置，因此不需要复制；
+ * 修改、删除时只复制受影响的块与块目录。 <br/>
+ * {@link PageWrapper#wrap(Collection, org.springframework.data.domain.Pageable)}直接使用快照，不再复制
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked"})
+public final class SnapshotList<T> {
+
+    private static final int CHUNK_SHIFT = 8;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot<T> current = new Snapshot<>(new Object[0][], 0, 0);
+
+    public SnapshotList() {
+    }
+
+    public SnapshotList(Collection<? extends T> content) {
+        addAll(content);
+    }
+
+    /**
+     * @return 当前内容的不可变快照
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    public int size() {
+        return current.size;
+    }
+
+    public T get(int i) {
+        return current.get(i);
+    }
+
+    public void add(T element) {
+        synchronized (writeLock) {
+            Snapshot<T> snapshot = current;
+            Object[][] chunks = appendable(snapshot, 1);
+            int size = snapshot.size;
+            chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = element;
+            current = new Snapshot<>(chunks, size + 1, snapshot.version + 1);
+        }
+    }
+
+    public void addAll(Collection<? extends T> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            Snapshot<T> snapshot = current;
+            Object[] array = elements.toArray();
+            Object[][] chunks = appendable(snapshot, array.length);
+            int size = snapshot.size;
+            for (Object element : array) {
+                chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = element;
+                size++;
+            }
+            current = new Snapshot<>(chunks, size, snapshot.version + 1);
+        }
+    }
+
+    /**
+     * 替换指定位置的元素，复制该元素所在的块
+     *
+     * @return 原来的元素
+     */
+    public T set(int i, T element) {
+        synchronized (writeLock) {
+            Snapshot<T> snapshot = current;
+            T old = snapshot.get(i);
+            Object[][] chunks = snapshot.chunks.clone();
+            int c = i >>> CHUNK_SHIFT;
+            chunks[c] = chunks[c].clone();
+            chunks[c][i & CHUNK_MASK] = element;
+            current = new Snapshot<>(chunks, snapshot.size, snapshot.version + 1);
+            return old;
+        }
+    }
+
+    /**
+     * 删除指定位置的元素，复制该元素所在的块及之后的块
+     *
+     * @return 删除的元素
+     */
+    public T remove(int i) {
+        synchronized (writeLock) {
+            Snapshot<T> snapshot = current;
+            T old = snapshot.get(i);
+            int size = snapshot.size - 1;
+            Object[][] chunks = snapshot.chunks.clone();
+            int first = i >>> CHUNK_SHIFT;
+            int last = size == 0 ? -1 : (size - 1) >>> CHUNK_SHIFT;
+            for (int c = first; c <= last; c++) {
+                Object[] chunk = new Object[CHUNK_SIZE];
+                int from = c == first ? i & CHUNK_MASK : 0;
+                System.arraycopy(chunks[c], 0, chunk, 0, from);
+                for (int p = from; p < CHUNK_SIZE; p++) {
+                    int index = (c << CHUNK_SHIFT) + p;
+                    if (index >= size) {
+                        break;
+                    }
+                    chunk[p] = snapshot.get(index + 1);
+                }
+                chunks[c] = chunk;
+            }
+            // 多余的块不再属于新快照，之后追加时重新分配
+            for (int c = last + 1; c < chunks.length; c++) {
+                chunks[c] = null;
+            }
+            current = new Snapshot<>(chunks, size, snapshot.version + 1);
+            return old;
+        }
+    }
+
+    public void clear() {
+        synchronized (writeLock) {
+            current = new Snapshot<>(new Object[0][], 0, current.version + 1);
+        }
+    }
+
+    /**
+     * 准备追加count个元素的块目录：目录有空位时复用，否则扩容；
+     * 最后一块之后的位置与空位不会被任何已发布的快照读取，可以直接写入
+     */
+    private static Object[][] appendable(Snapshot<?> snapshot, int count) {
+        int size = snapshot.size;
+        int required = (int) (((long) size + count + CHUNK_MASK) >>> CHUNK_SHIFT);
+        Object[][] chunks = snapshot.chunks;
+        if (required > chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(required, chunks.length + (chunks.length >> 1) + 1));
+        }
+        for (int c = (size + CHUNK_MASK) >>> CHUNK_SHIFT; c < required; c++) {
+            chunks[c] = new Object[CHUNK_SIZE];
+        }
+        return chunks;
+    }
+
+    /**
+     * 不可变快照
+     */
+    public static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+
+        private final Object[][] chunks;
+
+        private final int size;
+
+        private final long version;
+
+        private Snapshot(Object[][] chunks, int size, long version) {
+            this.chunks = chunks;
+            this.size = size;
+            this.version = version;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return 版本，每次修改后加一
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+}
@@ -3,20 +3,50 @@ package io.github.tonybro233.littlewheels.common;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * Twitter开源分布式id生成器
+ * Twitter开源分布式id生成器，id格式可配置，见{@link SnowFlakeLayout}
+ *
+ * @see LockFreeSnowFlake
  */
-public final class SnowFlake {
+public final class SnowFlake implements IdGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SnowFlake.class);
 
-    public static final SnowFlake DEFAULT = new SnowFlake(0, 0, 0);
+    private static final long ROLLBACK_PARK_NANOS = 100_000L;
+
+    private static final long WAIT_PARK_NANOS = 50_000L;
+
+    private static final int SPIN_TRIES = 100;
+
+    public static final SnowFlake DEFAULT = newInstance(0, 0, 0);
 
     public static SnowFlake newInstance(long workerId, long datacenterId, long sequence) {
-        return new SnowFlake(workerId, datacenterId, sequence);
+        return builder().workerId(workerId).datacenterId(datacenterId).sequence(sequence).build();
     }
 
-    private SnowFlake(long workerId, long datacenterId, long sequence) {
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private SnowFlake(Builder builder) {
+        SnowFlakeLayout layout = builder.layout;
+        this.layout = layout;
+        this.twepoch = layout.getEpoch();
+        this.workerIdBits = layout.getWorkerIdBits();
+        this.datacenterIdBits = layout.getDatacenterIdBits();
+        this.maxWorkerId = layout.getMaxWorkerId();
+        this.maxDatacenterId = layout.getMaxDatacenterId();
+        this.sequenceBits = layout.getSequenceBits();
+        this.workerIdShift = layout.getWorkerIdShift();
+        this.datacenterIdShift = layout.getDatacenterIdShift();
+        this.timestampLeftShift = layout.getTimestampShift();
+        this.sequenceMask = layout.getSequenceMask();
+
+        long workerId = builder.workerId;
+        long datacenterId = builder.datacenterId;
         // sanity check for workerId
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(
@@ -26,84 +56,124 @@ public final class SnowFlake {
             throw new IllegalArgumentException(
                     String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
+        if (builder.sequence > sequenceMask || builder.sequence < -1) {
+            throw new IllegalArgumentException(
+                    String.format("sequence can't be greater than %d or less than -1", sequenceMask));
+        }
         LOGGER.info("Snowflake worker starting. timestamp left shift {}, datacenter id bits {}, worker id bits {}, "
                         + "sequence bits {}, workerid {}",
                 timestampLeftShift, datacenterIdBits, workerIdBits, sequenceBits, workerId);
 
         this.workerId = workerId;
         this.datacenterId = datacenterId;
-        this.sequence = sequence;
+        this.sequence = builder.sequence;
+        this.lastTimestamp = builder.lastTimestamp;
+        this.clock = builder.clock;
+        this.rollbackStrategy = builder.rollbackStrategy;
+        this.maxRollbackMillis = builder.maxRollbackMillis;
+        this.waitStrategy = builder.waitStrategy;
     }
 
     /**
      * 机器号
      */
-    private long workerId;
+    private final long workerId;
 
     /**
      * 数据中心号
      */
-    private long datacenterId;
+    private final long datacenterId;
 
     /**
      * 同毫秒内自增序列号
      */
     private long sequence;
 
+    /**
+     * id格式
+     */
+    private final SnowFlakeLayout layout;
+
     /**
      * 程序序列号 第一次生成时间 可以自己配置
      */
-    private long twepoch = 1038834974657L;
+    private final long twepoch;
 
     /**
-     * 机器号 5位
+     * 机器号位数
      */
-    private long workerIdBits = 5;
+    private final long workerIdBits;
 
     /**
-     * 数据中心号 5位
+     * 数据中心号位数
      */
-    private long datacenterIdBits = 5;
+    private final long datacenterIdBits;
 
     /**
      * 最大机器号
      */
-    private long maxWorkerId = -1 ^ (-1 << workerIdBits);
+    private final long maxWorkerId;
 
     /**
      * 最大数据中心号
      */
-    private long maxDatacenterId = -1 ^ (-1 << datacenterIdBits);
+    private final long maxDatacenterId;
 
     /**
      * 同毫秒内 自增序列位数
      */
-    private long sequenceBits = 12;
+    private final long sequenceBits;
 
     /**
      * 机器号左移位数
      */
-    private long workerIdShift = sequenceBits;
+    private final long workerIdShift;
 
     /**
      * 数据中心号左移位数
      */
-    private long datacenterIdShift = sequenceBits + workerIdBits;
+    private final long datacenterIdShift;
 
     /**
      * 时间戳差值左移位数
      */
-    private long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    private final long timestampLeftShift;
 
     /**
      * 同毫秒内自增序列号最大值   防止溢出 影响机器号的值
      */
-    private long sequenceMask = -1 ^ (-1 << sequenceBits);
+    private final long sequenceMask;
 
     /**
      * 上次生成序列号的时间
      */
-    private long lastTimestamp = -1;
+    private long lastTimestamp;
+
+    /**
+     * 时间来源
+     */
+    private final MillisClock clock;
+
+    /**
+     * 时钟回拨的处理策略
+     */
+    private final ClockRollbackStrategy rollbackStrategy;
+
+    /**
+     * 允许等待或借用的最大回拨毫秒数
+     */
+    private final long maxRollbackMillis;
+
+    /**
+     * 序列号用尽时的等待策略
+     */
+    private final SequenceWaitStrategy waitStrategy;
+
+    private final LongAdder rollbackWaits = new LongAdder();
+
+    private final LongAdder rollbackBorrows = new LongAdder();
+
+    private final LongAdder rollbackFailures = new LongAdder();
 
     public long getWorkerId() {
         return workerId;
@@ -113,30 +183,86 @@ public final class SnowFlake {
         return datacenterId;
     }
 
+    public SnowFlakeLayout getLayout() {
+        return layout;
+    }
+
     public long getTimestamp() {
-        return System.currentTimeMillis();
+        return clock.millis();
     }
 
-    public synchronized long nextId() {
-        // 获取当前时间
-        long timestamp = timeGen();
-        // 检查时间是否倒退
-        if (timestamp < lastTimestamp) {
-            LOGGER.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
-            throw new RuntimeException(String.format(
-                    "Clock moved backwards.  Refusing to generate id for %d milliseconds",
-                    lastTimestamp - timestamp));
+    /**
+     * @return 上次生成id的时间，还没有生成过时为初始值
+     */
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * @return 因时钟回拨而等待的次数
+     */
+    public long getRollbackWaits() {
+        return rollbackWaits.sum();
+    }
+
+    /**
+     * @return 因时钟回拨而借用时间的次数，借用期间每次取时间或换到下一毫秒都计一次
+     */
+    public long getRollbackBorrows() {
+        return rollbackBorrows.sum();
+    }
+
+    /**
+     * @return 因时钟回拨而抛出异常的次数
+     */
+    public long getRollbackFailures() {
+        return rollbackFailures.sum();
+    }
+
+    @Override
+    public long nextId() {
+        if (waitStrategy != SequenceWaitStrategy.BACKOFF) {
+            synchronized (this) {
+                return generate(true);
+            }
+        }
+        for (; ; ) {
+            long id;
+            long last;
+            synchronized (this) {
+                id = generate(false);
+                last = lastTimestamp;
+            }
+            if (id >= 0) {
+                return id;
+            }
+            // 序列号用尽，在锁外等待下一毫秒
+            awaitAfter(last);
         }
+    }
+
+    /**
+     * 生成一个id，调用时持有锁
+     *
+     * @param wait 序列号用尽时是否在锁内等待下一毫秒，否则返回-1
+     */
+    private long generate(boolean wait) {
+        // 获取当前时间，时间倒退时按策略处理
+        long timestamp = currentMillis();
         //如果本次生成时间跟上次时间相同 那么自增序列增加，如果溢出那么就等下个时间，主要是防止重复
+        long next = 0;
         if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
+            next = sequence + 1;
+            if (next > sequenceMask) {
+                next = 0;
                 //获取下个时间
-                timestamp = tilNextMillis(lastTimestamp);
+                timestamp = wait ? tilNextMillis(lastTimestamp) : borrowNextMillis(lastTimestamp);
+                if (timestamp < 0) {
+                    return -1;
+                }
             }
-        } else {
-            sequence = 0;
         }
+        sequence = next;
         // 更新上次生成时间
         lastTimestamp = timestamp;
         // 将4部分合在一起
@@ -146,16 +272,256 @@ public final class SnowFlake {
                 | sequence;
     }
 
+    /**
+     * 批量生成id，一次加锁，每毫秒预留一段连续的序列号，序列号用尽时等到下一毫秒。
+     * id与逐个调用{@link #nextId()}一样严格递增
+     */
+    @Override
+    public void fill(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off > dst.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + dst.length);
+        }
+        int end = off + len;
+        boolean wait = waitStrategy != SequenceWaitStrategy.BACKOFF;
+        while (off < end) {
+            long last;
+            synchronized (this) {
+                off = generate(dst, off, end, wait);
+                last = lastTimestamp;
+            }
+            if (off < end) {
+                awaitAfter(last);
+            }
+        }
+    }
+
+    /**
+     * 批量生成id，调用时持有锁
+     *
+     * @param wait 序列号用尽时是否在锁内等待下一毫秒，否则返回已生成到的位置
+     * @return 已生成到的位置
+     */
+    private int generate(long[] dst, int off, int end, boolean wait) {
+        while (off < end) {
+            long timestamp = currentMillis();
+            long start = 0;
+            if (timestamp == lastTimestamp) {
+                if (sequence == sequenceMask) {
+                    timestamp = wait ? tilNextMillis(lastTimestamp) : borrowNextMillis(lastTimestamp);
+                    if (timestamp < 0) {
+                        return off;
+                    }
+                } else {
+                    start = sequence + 1;
+                }
+            }
+            int count = (int) Math.min(end - off, sequenceMask - start + 1);
+            long base = ((timestamp - twepoch) << timestampLeftShift)
+                    | (datacenterId << datacenterIdShift)
+                    | (workerId << workerIdShift);
+            for (int i = 0; i < count; i++) {
+                dst[off + i] = base | (start + i);
+            }
+            off += count;
+            sequence = start + count - 1;
+            lastTimestamp = timestamp;
+        }
+        return off;
+    }
+
+    /**
+     * 获取当前时间，检查时间是否倒退：
+     * 回拨幅度不超过允许值时按策略等待或借用上次的时间，否则抛出异常
+     */
+    private long currentMillis() {
+        long timestamp = timeGen();
+        if (timestamp >= lastTimestamp) {
+            return timestamp;
+        }
+        if (rollbackStrategy == ClockRollbackStrategy.FAIL_FAST || lastTimestamp - timestamp > maxRollbackMillis) {
+            throw clockMovedBackwards(timestamp);
+        }
+        if (rollbackStrategy == ClockRollbackStrategy.BORROW) {
+            rollbackBorrows.increment();
+            return lastTimestamp;
+        }
+        rollbackWaits.increment();
+        while ((timestamp = timeGen()) < lastTimestamp) {
+            // 等待期间时钟可能继续回拨
+            if (lastTimestamp - timestamp > maxRollbackMillis) {
+                throw clockMovedBackwards(timestamp);
+            }
+            LockSupport.parkNanos(ROLLBACK_PARK_NANOS);
+        }
+        return timestamp;
+    }
+
+    private RuntimeException clockMovedBackwards(long timestamp) {
+        rollbackFailures.increment();
+        LOGGER.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
+        return new RuntimeException(String.format(
+                "Clock moved backwards.  Refusing to generate id for %d milliseconds",
+                lastTimestamp - timestamp));
+    }
+
     private long tilNextMillis(long lastTimestamp) {
+        long timestamp = borrowNextMillis(lastTimestamp);
+        return timestamp < 0 ? awaitAfter(lastTimestamp) : timestamp;
+    }
+
+    /**
+     * 借用时间期间序列号用尽，继续向未来借用一毫秒
+     *
+     * @return 借用的时间，不能借用时返回-1
+     */
+    private long borrowNextMillis(long lastTimestamp) {
+        if (rollbackStrategy == ClockRollbackStrategy.BORROW) {
+            long timestamp = timeGen();
+            if (timestamp < lastTimestamp && lastTimestamp + 1 - timestamp <= maxRollbackMillis) {
+                rollbackBorrows.increment();
+                return lastTimestamp + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按等待策略等到晚于lastTimestamp的时间
+     */
+    private long awaitAfter(long lastTimestamp) {
         long timestamp = timeGen();
+        int spins = 0;
         while (timestamp <= lastTimestamp) {
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    break;
+                case SPIN_YIELD:
+                    if (++spins > SPIN_TRIES) {
+                        Thread.yield();
+                    }
+                    break;
+                default:
+                    LockSupport.parkNanos(WAIT_PARK_NANOS);
+            }
             timestamp = timeGen();
         }
         return timestamp;
     }
 
     private long timeGen() {
-        return System.currentTimeMillis();
+        return clock.millis();
+    }
+
+    public static final class Builder {
+
+        private long workerId;
+
+        private long datacenterId;
+
+        private long sequence;
+
+        private long lastTimestamp = -1;
+
+        private MillisClock clock = MillisClock.system();
+
+        private SnowFlakeLayout layout = SnowFlakeLayout.DEFAULT;
+
+        private ClockRollbackStrategy rollbackStrategy = ClockRollbackStrategy.FAIL_FAST;
+
+        private long maxRollbackMillis;
+
+        private SequenceWaitStrategy waitStrategy = SequenceWaitStrategy.BUSY_SPIN;
+
+        private Builder() {
+        }
+
+        /**
+         * 机器号，默认为0
+         */
+        public Builder workerId(long workerId) {
+            this.workerId = workerId;
+            return this;
+        }
+
+        /**
+         * 数据中心号，默认为0
+         */
+        public Builder datacenterId(long datacenterId) {
+            this.datacenterId = datacenterId;
+            return this;
+        }
+
+        /**
+         * 初始序列号，默认为0，取值范围为-1到{@link SnowFlakeLayout#getSequenceMask()}
+         */
+        public Builder sequence(long sequence) {
+            this.sequence = sequence;
+            return this;
+        }
+
+        /**
+         * 上次生成id的时间，如重启前持久化的时间，当前时间早于该时间时按时钟回拨处理，
+         * 保证不会重复生成之前的id；该时间内从{@link #sequence(long)} + 1继续分配。默认为-1
+         */
+        public Builder lastTimestamp(long lastTimestamp) {
+            this.lastTimestamp = lastTimestamp;
+            return this;
+        }
+
+        /**
+         * 时间来源，默认为{@link MillisClock#system()}
+         */
+        public Builder clock(MillisClock clock) {
+            if (null == clock) {
+                throw new IllegalArgumentException("clock can't be null");
+            }
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * id格式，默认为{@link SnowFlakeLayout#DEFAULT}
+         */
+        public Builder layout(SnowFlakeLayout layout) {
+            if (null == layout) {
+                throw new IllegalArgumentException("layout can't be null");
+            }
+            this.layout = layout;
+            return this;
+        }
+
+        /**
+         * 时钟回拨的处理策略，默认为{@link ClockRollbackStrategy#FAIL_FAST}
+         *
+         * @param strategy          处理策略
+         * @param maxRollbackMillis 允许等待或借用的最大回拨毫秒数，超过时抛出异常
+         */
+        public Builder clockRollback(ClockRollbackStrategy strategy, long maxRollbackMillis) {
+            if (null == strategy) {
+                throw new IllegalArgumentException("strategy can't be null");
+            }
+            if (maxRollbackMillis < 0) {
+                throw new IllegalArgumentException("maxRollbackMillis can't be less than 0");
+            }
+            this.rollbackStrategy = strategy;
+            this.maxRollbackMillis = maxRollbackMillis;
+            return this;
+        }
+
+        /**
+         * 同一毫秒内序列号用尽时的等待策略，默认为{@link SequenceWaitStrategy#BUSY_SPIN}
+         */
+        public Builder waitStrategy(SequenceWaitStrategy waitStrategy) {
+            if (null == waitStrategy) {
+                throw new IllegalArgumentException("waitStrategy can't be null");
+            }
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        public SnowFlake build() {
+            return new SnowFlake(this);
+        }
     }
 
 }
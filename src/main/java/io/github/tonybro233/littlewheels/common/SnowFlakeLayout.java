@@ -0,0 +1,175 @@
+package io.github.tonybro233.littlewheels.common;
+
+/**
+ * 不可变的SnowFlake id格式：起始时间与各部分位数，从高到低依次为时间戳差值、数据中心号、机器号、序列号，
+ * 各部分位数之和不能超过63，保证id为正数。 <br/>
+ * 如集群机器较多时可使用10位机器号、10位序列号，单机突发量大时可使用16位序列号并减少其它部分的位数
+ *
+ * @author tony
+ * @see SnowFlake.Builder#layout(SnowFlakeLayout)
+ */
+public final class SnowFlakeLayout {
+
+    /**
+     * 原有的格式：起始时间1038834974657，41位时间戳差值，5位数据中心号，5位机器号，12位序列号
+     */
+    public static final SnowFlakeLayout DEFAULT = builder().build();
+
+    private final long epoch;
+
+    private final int timestampBits;
+
+    private final int datacenterIdBits;
+
+    private final int workerIdBits;
+
+    private final int sequenceBits;
+
+    private SnowFlakeLayout(Builder builder) {
+        this.epoch = builder.epoch;
+        this.timestampBits = builder.timestampBits;
+        this.datacenterIdBits = builder.datacenterIdBits;
+        this.workerIdBits = builder.workerIdBits;
+        this.sequenceBits = builder.sequenceBits;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return 起始时间，毫秒
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getTimestampBits() {
+        return timestampBits;
+    }
+
+    public int getDatacenterIdBits() {
+        return datacenterIdBits;
+    }
+
+    public int getWorkerIdBits() {
+        return workerIdBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public long getMaxDatacenterId() {
+        return ~(-1L << datacenterIdBits);
+    }
+
+    public long getMaxWorkerId() {
+        return ~(-1L << workerIdBits);
+    }
+
+    public long getSequenceMask() {
+        return ~(-1L << sequenceBits);
+    }
+
+    public int getWorkerIdShift() {
+        return sequenceBits;
+    }
+
+    public int getDatacenterIdShift() {
+        return sequenceBits + workerIdBits;
+    }
+
+    public int getTimestampShift() {
+        return sequenceBits + workerIdBits + datacenterIdBits;
+    }
+
+    /**
+     * @return 可以表示的最大时间，毫秒
+     */
+    public long getMaxTimestamp() {
+        return epoch + ~(-1L << timestampBits);
+    }
+
+    @Override
+    public String toString() {
+        return "SnowFlakeLayout[epoch=" + epoch + ", timestamp=" + timestampBits + ", datacenterId=" + datacenterIdBits
+                + ", workerId=" + workerIdBits + ", sequence=" + sequenceBits + "]";
+    }
+
+    public static final class Builder {
+
+        private long epoch = 1038834974657L;
+
+        private int timestampBits = 41;
+
+        private int datacenterIdBits = 5;
+
+        private int workerIdBits = 5;
+
+        private int sequenceBits = 12;
+
+        private Builder() {
+        }
+
+        /**
+         * 起始时间，毫秒，不能晚于当前时间，默认为1038834974657
+         */
+        public Builder epoch(long epoch) {
+            this.epoch = epoch;
+            return this;
+        }
+
+        /**
+         * 时间戳差值位数，默认为41，约69年
+         */
+        public Builder timestampBits(int timestampBits) {
+            this.timestampBits = timestampBits;
+            return this;
+        }
+
+        /**
+         * 数据中心号位数，默认为5
+         */
+        public Builder datacenterIdBits(int datacenterIdBits) {
+            this.datacenterIdBits = datacenterIdBits;
+            return this;
+        }
+
+        /**
+         * 机器号位数，默认为5
+         */
+        public Builder workerIdBits(int workerIdBits) {
+            this.workerIdBits = workerIdBits;
+            return this;
+        }
+
+        /**
+         * 序列号位数，默认为12
+         */
+        public Builder sequenceBits(int sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        public SnowFlakeLayout build() {
+            if (epoch < 0) {
+                throw new IllegalArgumentException("epoch can't be less than 0");
+            }
+            if (timestampBits < 1 || sequenceBits < 1) {
+                throw new IllegalArgumentException("timestamp bits and sequence bits can't be less than 1");
+            }
+            if (datacenterIdBits < 0 || workerIdBits < 0) {
+                throw new IllegalArgumentException("datacenter id bits and worker id bits can't be less than 0");
+            }
+            int total = timestampBits + datacenterIdBits + workerIdBits + sequenceBits;
+            if (total > 63) {
+                throw new IllegalArgumentException(String.format(
+                        "total bits can't be greater than 63, timestamp %d + datacenter id %d + worker id %d + sequence %d = %d",
+                        timestampBits, datacenterIdBits, workerIdBits, sequenceBits, total));
+            }
+            return new SnowFlakeLayout(this);
+        }
+    }
+
+}
@@ -0,0 +1,396 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * 排序键的列式存储，每个元素的每个排序属性只读取一次 <br/>
+ * 整数与布尔值存入long[]，浮点数存入double[]，字符串(包括非Comparable属性的toString)
+ * 忽略大小写时预先折叠大小写，比较结果与{@link PageWrapper}逐次读取Getter比较一致
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class SortKeys implements IndexComparator {
+
+    private final Column[] columns;
+
+    private final int size;
+
+    private SortKeys(Column[] columns, int size) {
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * 提取排序键
+     *
+     * @param content   内容
+     * @param orders    排序属性
+     * @param accessors 与排序属性一一对应的读取器
+     * @return 排序键
+     */
+    static SortKeys extract(List<?> content, List<Sort.Order> orders, List<PropertyAccessor> accessors) {
+        int size = content.size();
+        Column[] columns = new Column[orders.size()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = Column.of(orders.get(c), accessors.get(c), size);
+        }
+        int i = 0;
+        for (Object element : content) {
+            for (Column column : columns) {
+                column.set(i, column.accessor.get(element));
+            }
+            i++;
+        }
+        return new SortKeys(columns, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 排序属性数
+     */
+    int width() {
+        return columns.length;
+    }
+
+    /**
+     * 读取单个元素的排序键，与列中存储的形式相同
+     *
+     * @param element 元素
+     * @return 各排序属性的键，NULL值为null
+     */
+    Object[] keyOf(Object element) {
+        Object[] key = new Object[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            Object value = columns[c].accessor.get(element);
+            key[c] = null == value ? null : columns[c].normalize(value);
+        }
+        return key;
+    }
+
+    /**
+     * 比较两个由{@link #keyOf(Object)}得到的排序键
+     */
+    int compareKeys(Object[] key1, Object[] key2) {
+        for (int c = 0; c < columns.length; c++) {
+            int result = columns[c].compareKey(key1[c], key2[c]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param c 列序号
+     * @return 排序属性的声明类型
+     */
+    Class<?> typeOf(int c) {
+        return columns[c].accessor.getType();
+    }
+
+    /**
+     * @param c 列序号
+     * @return 列中存储的排序键的类型
+     */
+    Class<?> keyTypeOf(int c) {
+        return columns[c].keyType();
+    }
+
+    @Override
+    public int compare(int i, int j) {
+        for (Column column : columns) {
+            int result = column.compare(i, j);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private abstract static class Column {
+
+        final PropertyAccessor accessor;
+
+        private final Sort.NullHandling nullHandling;
+
+        private final boolean descending;
+
+        /**
+         * 为NULL的位置，没有NULL时不分配
+         */
+        private boolean[] nulls;
+
+        Column(Sort.Order order, PropertyAccessor accessor) {
+            this.accessor = accessor;
+            this.nullHandling = order.getNullHandling();
+            this.descending = order.getDirection() == Sort.Direction.DESC;
+        }
+
+        static Column of(Sort.Order order, PropertyAccessor accessor, int size) {
+            Class<?> type = accessor.getType();
+            Class<?> wrapper = ClassUtils.resolvePrimitiveIfNecessary(type);
+            if (wrapper == Integer.class || wrapper == Long.class || wrapper == Short.class || wrapper == Byte.class
+                    || wrapper == Character.class || wrapper == Boolean.class) {
+                return new LongColumn(order, accessor, size);
+            } else if (wrapper == Double.class || wrapper == Float.class) {
+                return new DoubleColumn(order, accessor, size);
+            } else if (type == String.class || !Comparable.class.isAssignableFrom(type)) {
+                // 非Comparable的属性按toString比较
+                return new StringColumn(order, accessor, size);
+            }
+            return new ComparableColumn(order, accessor, size);
+        }
+
+        final void set(int i, Object value) {
+            if (null == value) {
+                if (null == nulls) {
+                    nulls = new boolean[capacity()];
+                }
+                nulls[i] = true;
+            } else {
+                setValue(i, value);
+            }
+        }
+
+        final int compare(int i, int j) {
+            boolean null1 = null != nulls && nulls[i];
+            boolean null2 = null != nulls && nulls[j];
+            if (null1 || null2) {
+                return compareNull(null1, null2);
+            }
+            int result = compareValue(i, j);
+            return descending ? -result : result;
+        }
+
+        final int compareKey(Object key1, Object key2) {
+            if (null == key1 || null == key2) {
+                return compareNull(null == key1, null == key2);
+            }
+            int result = ((Comparable) key1).compareTo(key2);
+            return descending ? -result : result;
+        }
+
+        /**
+         * 与PageWrapper.GetterComparator的NULL处理一致
+         */
+        private int compareNull(boolean null1, boolean null2) {
+            if (null1 && null2) {
+                return 0;
+            }
+            int result;
+            switch (nullHandling) {
+                case NULLS_FIRST:
+                    return null1 ? -1 : 1;
+                case NULLS_LAST:
+                    return null1 ? 1 : -1;
+                case NATIVE:
+                default:
+                    // 默认NULL最小，升序NULL最前，降序NULL最后
+                    result = null1 ? -1 : 1;
+                    return descending ? -result : result;
+            }
+        }
+
+        abstract int capacity();
+
+        abstract void setValue(int i, Object value);
+
+        /**
+         * 将非NULL的属性值转为列中存储的形式
+         */
+        abstract Object normalize(Object value);
+
+        /**
+         * @return {@link #normalize(Object)}结果的类型
+         */
+        abstract Class<?> keyType();
+
+        abstract int compareValue(int i, int j);
+    }
+
+    private static final class LongColumn extends Column {
+
+        private final long[] values;
+
+        LongColumn(Sort.Order order, PropertyAccessor accessor, int size) {
+            super(order, accessor);
+            this.values = new long[size];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void setValue(int i, Object value) {
+            if (value instanceof Boolean) {
+                values[i] = (Boolean) value ? 1 : 0;
+            } else if (value instanceof Character) {
+                values[i] = (Character) value;
+            } else {
+                values[i] = ((Number) value).longValue();
+            }
+        }
+
+        @Override
+        Object normalize(Object value) {
+            if (value instanceof Boolean) {
+                return (Boolean) value ? 1L : 0L;
+            } else if (value instanceof Character) {
+                return (long) (Character) value;
+            }
+            return ((Number) value).longValue();
+        }
+
+        @Override
+        Class<?> keyType() {
+            return Long.class;
+        }
+
+        @Override
+        int compareValue(int i, int j) {
+            return Long.compare(values[i], values[j]);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private final double[] values;
+
+        DoubleColumn(Sort.Order order, PropertyAccessor accessor, int size) {
+            super(order, accessor);
+            this.values = new double[size];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void setValue(int i, Object value) {
+            values[i] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        Object normalize(Object value) {
+            return ((Number) value).doubleValue();
+        }
+
+        @Override
+        Class<?> keyType() {
+            return Double.class;
+        }
+
+        @Override
+        int compareValue(int i, int j) {
+            return Double.compare(values[i], values[j]);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+
+        private final String[] values;
+
+        private final boolean ignoreCase;
+
+        StringColumn(Sort.Order order, PropertyAccessor accessor, int size) {
+            super(order, accessor);
+            this.values = new String[size];
+            this.ignoreCase = order.isIgnoreCase();
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void setValue(int i, Object value) {
+            values[i] = (String) normalize(value);
+        }
+
+        @Override
+        Object normalize(Object value) {
+            String str = value.toString();
+            return ignoreCase ? foldCase(str) : str;
+        }
+
+        @Override
+        Class<?> keyType() {
+            return String.class;
+        }
+
+        @Override
+        int compareValue(int i, int j) {
+            return values[i].compareTo(values[j]);
+        }
+    }
+
+    private static final class ComparableColumn extends Column {
+
+        private final Comparable[] values;
+
+        private final boolean ignoreCase;
+
+        ComparableColumn(Sort.Order order, PropertyAccessor accessor, int size) {
+            super(order, accessor);
+            this.values = new Comparable[size];
+            this.ignoreCase = order.isIgnoreCase();
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void setValue(int i, Object value) {
+            values[i] = (Comparable) normalize(value);
+        }
+
+        @Override
+        Object normalize(Object value) {
+            // 声明类型不是String但实际值是String时同样需要忽略大小写
+            return ignoreCase && value instanceof String ? foldCase((String) value) : value;
+        }
+
+        @Override
+        Class<?> keyType() {
+            return ClassUtils.resolvePrimitiveIfNecessary(accessor.getType());
+        }
+
+        @Override
+        int compareValue(int i, int j) {
+            return values[i].compareTo(values[j]);
+        }
+    }
+
+    /**
+     * 折叠大小写，折叠后的{@link String#compareTo(String)}
+     * 与折叠前的{@link String#compareToIgnoreCase(String)}结果一致
+     */
+    static String foldCase(String str) {
+        char[] chars = null;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (null == chars) {
+                    chars = str.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return null == chars ? str : new String(chars);
+    }
+
+}
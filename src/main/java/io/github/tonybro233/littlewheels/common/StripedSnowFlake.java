@@ -0,0 +1,245 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段的{@link SnowFlake}，id格式与{@link SnowFlake}相同。 <br/>
+ * 序列号的高stripeBits位作为段号，每段独立保存时间戳与段内序列号，线程首次使用时按轮询分配到一个段，
+ * 段数不少于线程数时线程之间没有共享写入。多个线程分到同一段时通过CAS保证正确，
+ * 因此线程结束、新线程替换时不需要回收段。 <br/>
+ * 每段每毫秒最多生成2^(序列号位数 - stripeBits)个id；同一线程内的id严格递增，
+ * 不同段的id全局唯一，但同一毫秒内不保证先后顺序
+ *
+ * @author tony
+ */
+public final class StripedSnowFlake implements IdGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StripedSnowFlake.class);
+
+    /**
+     * 相邻的段间隔128字节，避免伪共享
+     */
+    private static final int PADDING = 16;
+
+    private final long workerId;
+
+    private final long datacenterId;
+
+    /**
+     * id格式
+     */
+    private final SnowFlakeLayout layout;
+
+    private final long twepoch;
+
+    private final int sequenceBits;
+
+    private final int workerIdShift;
+
+    private final int datacenterIdShift;
+
+    private final int timestampLeftShift;
+
+    /**
+     * 时间来源
+     */
+    private final MillisClock clock;
+
+    private final int stripes;
+
+    /**
+     * 段内序列号位数
+     */
+    private final int stripeSequenceBits;
+
+    private final long stripeSequenceMask;
+
+    /**
+     * 每段上次生成id的(时间戳 - 起始时间) << 序列号位数 | 段内序列号
+     */
+    private final AtomicLongArray states;
+
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    private final ThreadLocal<Integer> threadStripe;
+
+    /**
+     * @param workerId     机器号
+     * @param datacenterId 数据中心号
+     * @param stripeBits   段号位数，0到11，段数为2^stripeBits
+     */
+    public static StripedSnowFlake newInstance(long workerId, long datacenterId, int stripeBits) {
+        return new StripedSnowFlake(workerId, datacenterId, stripeBits, SnowFlakeLayout.DEFAULT, MillisClock.system());
+    }
+
+    /**
+     * @param clock 时间来源
+     */
+    public static StripedSnowFlake newInstance(long workerId, long datacenterId, int stripeBits, MillisClock clock) {
+        return new StripedSnowFlake(workerId, datacenterId, stripeBits, SnowFlakeLayout.DEFAULT, clock);
+    }
+
+    /**
+     * @param stripeBits 段号位数，小于id格式的序列号位数
+     * @param layout     id格式
+     * @param clock      时间来源
+     */
+    public static StripedSnowFlake newInstance(long workerId, long datacenterId, int stripeBits,
+                                               SnowFlakeLayout layout, MillisClock clock) {
+        return new StripedSnowFlake(workerId, datacenterId, stripeBits, layout, clock);
+    }
+
+    /**
+     * 段数不少于CPU核数
+     */
+    public static StripedSnowFlake newInstance(long workerId, long datacenterId) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripeBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, processors - 1));
+        return new StripedSnowFlake(workerId, datacenterId, Math.min(stripeBits, 6),
+                SnowFlakeLayout.DEFAULT, MillisClock.system());
+    }
+
+    private StripedSnowFlake(long workerId, long datacenterId, int stripeBits,
+                             SnowFlakeLayout layout, MillisClock clock) {
+        if (workerId > layout.getMaxWorkerId() || workerId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("worker Id can't be greater than %d or less than 0", layout.getMaxWorkerId()));
+        }
+        if (datacenterId > layout.getMaxDatacenterId() || datacenterId < 0) {
+            throw new IllegalArgumentException(
+                    String.format("datacenter Id can't be greater than %d or less than 0", layout.getMaxDatacenterId()));
+        }
+        if (stripeBits < 0 || stripeBits >= layout.getSequenceBits()) {
+            throw new IllegalArgumentException(
+                    String.format("stripe bits can't be greater than %d or less than 0", layout.getSequenceBits() - 1));
+        }
+        LOGGER.info("Striped snowflake worker starting. datacenter id {}, worker id {}, stripe bits {}",
+                datacenterId, workerId, stripeBits);
+        this.workerId = workerId;
+        this.datacenterId = datacenterId;
+        this.layout = layout;
+        this.twepoch = layout.getEpoch();
+        this.sequenceBits = layout.getSequenceBits();
+        this.workerIdShift = layout.getWorkerIdShift();
+        this.datacenterIdShift = layout.getDatacenterIdShift();
+        this.timestampLeftShift = layout.getTimestampShift();
+        this.clock = clock;
+        this.stripes = 1 << stripeBits;
+        this.stripeSequenceBits = sequenceBits - stripeBits;
+        this.stripeSequenceMask = ~(-1L << stripeSequenceBits);
+        this.states = new AtomicLongArray(stripes * PADDING);
+        this.threadStripe = ThreadLocal.withInitial(() -> nextStripe.getAndIncrement() & (stripes - 1));
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public SnowFlakeLayout getLayout() {
+        return layout;
+    }
+
+    public long getTimestamp() {
+        return clock.millis();
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    @Override
+    public long nextId() {
+        int stripe = threadStripe.get();
+        int slot = stripe * PADDING;
+        for (; ; ) {
+            long current = states.get(slot);
+            long lastTimestamp = (current >>> sequenceBits) + twepoch;
+            long timestamp = timeGen();
+            checkClock(timestamp, lastTimestamp);
+            long sequence = 0;
+            if (timestamp == lastTimestamp) {
+                sequence = ((current & stripeSequenceMask) + 1) & stripeSequenceMask;
+                if (sequence == 0) {
+                    timestamp = tilNextMillis(lastTimestamp);
+                }
+            }
+            if (states.compareAndSet(slot, current, ((timestamp - twepoch) << sequenceBits) | sequence)) {
+                return base(timestamp, stripe) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 批量生成id，每次CAS预留当前段在当前毫秒内剩余的序列号
+     */
+    @Override
+    public void fill(long[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off > dst.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + dst.length);
+        }
+        int stripe = threadStripe.get();
+        int slot = stripe * PADDING;
+        int end = off + len;
+        while (off < end) {
+            long current = states.get(slot);
+            long lastTimestamp = (current >>> sequenceBits) + twepoch;
+            long timestamp = timeGen();
+            checkClock(timestamp, lastTimestamp);
+            long start = 0;
+            if (timestamp == lastTimestamp) {
+                if ((current & stripeSequenceMask) == stripeSequenceMask) {
+                    timestamp = tilNextMillis(lastTimestamp);
+                } else {
+                    start = (current & stripeSequenceMask) + 1;
+                }
+            }
+            int count = (int) Math.min(end - off, stripeSequenceMask - start + 1);
+            long next = ((timestamp - twepoch) << sequenceBits) | (start + count - 1);
+            if (!states.compareAndSet(slot, current, next)) {
+                continue;
+            }
+            long base = base(timestamp, stripe);
+            for (int i = 0; i < count; i++) {
+                dst[off + i] = base | (start + i);
+            }
+            off += count;
+        }
+    }
+
+    private long base(long timestamp, int stripe) {
+        return ((timestamp - twepoch) << timestampLeftShift)
+                | (datacenterId << datacenterIdShift)
+                | (workerId << workerIdShift)
+                | ((long) stripe << stripeSequenceBits);
+    }
+
+    private void checkClock(long timestamp, long lastTimestamp) {
+        if (timestamp < lastTimestamp) {
+            LOGGER.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
+            throw new RuntimeException(String.format(
+                    "Clock moved backwards.  Refusing to generate id for %d milliseconds",
+                    lastTimestamp - timestamp));
+        }
+    }
+
+    private long tilNextMillis(long lastTimestamp) {
+        long timestamp = timeGen();
+        while (timestamp <= lastTimestamp) {
+            timestamp = timeGen();
+        }
+        return timestamp;
+    }
+
+    private long timeGen() {
+        return clock.millis();
+    }
+
+}
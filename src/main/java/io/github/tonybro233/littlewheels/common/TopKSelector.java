@@ -0,0 +1,155 @@
+package io.github.tonybro233.littlewheels.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 有界堆实现的TopK选择器，保留按比较器排序最小的k个元素 <br/>
+ * 比较相等的元素按加入顺序排列，结果与对全部元素做稳定排序后取前k个一致
+ *
+ * @author tony
+ */
+@SuppressWarnings({"unchecked"})
+final class TopKSelector<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Comparator<? super T> comparator;
+
+    private final int k;
+
+    /**
+     * 大顶堆，堆顶为当前保留元素中最大的一个
+     */
+    private Object[] heap;
+
+    /**
+     * 元素加入的序号，比较相等时序号大的视为更大
+     */
+    private long[] seqs;
+
+    private int size;
+
+    private long count;
+
+    TopKSelector(Comparator<? super T> comparator, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k can't be less than 0");
+        }
+        this.comparator = comparator;
+        this.k = k;
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.heap = new Object[capacity];
+        this.seqs = new long[capacity];
+    }
+
+    /**
+     * 从列表中选出排序后的前k个元素
+     *
+     * @param list       内容
+     * @param comparator 比较器
+     * @param k          数量
+     * @return 排好序的前k个元素(不足k个时为全部元素)
+     */
+    static <T> List<T> select(List<T> list, Comparator<? super T> comparator, int k) {
+        TopKSelector<T> selector = new TopKSelector<>(comparator, Math.min(k, list.size()));
+        for (T t : list) {
+            selector.offer(t);
+        }
+        return selector.toSortedList();
+    }
+
+    void offer(T element) {
+        long seq = count++;
+        if (size < k) {
+            if (size == heap.length) {
+                int capacity = (int) Math.min((long) k, Math.max(1L, (long) size << 1));
+                heap = Arrays.copyOf(heap, capacity);
+                seqs = Arrays.copyOf(seqs, capacity);
+            }
+            heap[size] = element;
+            seqs[size] = seq;
+            siftUp(size++);
+        } else if (k > 0 && comparator.compare(element, (T) heap[0]) < 0) {
+            // 新元素序号最大，只有严格小于堆顶时才替换
+            heap[0] = element;
+            seqs[0] = seq;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * @return 已经加入的元素总数
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * 堆排序输出保留的元素，调用后选择器不可再使用
+     *
+     * @return 升序排列的保留元素
+     */
+    List<T> toSortedList() {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add((T) heap[i]);
+        }
+        return result;
+    }
+
+    private boolean greater(int i, int j) {
+        int r = comparator.compare((T) heap[i], (T) heap[j]);
+        return r > 0 || (r == 0 && seqs[i] > seqs[j]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!greater(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int bound) {
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= bound) {
+                break;
+            }
+            int largest = left;
+            int right = left + 1;
+            if (right < bound && greater(right, left)) {
+                largest = right;
+            }
+            if (!greater(largest, i)) {
+                break;
+            }
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object e = heap[i];
+        heap[i] = heap[j];
+        heap[j] = e;
+        long s = seqs[i];
+        seqs[i] = seqs[j];
+        seqs[j] = s;
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import io.github.tonybro233.littlewheels.common.IdGenerator;
+import io.github.tonybro233.littlewheels.common.SnowFlake;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * 使用SnowFlake在客户端生成Long类型主键，插入时不需要返回自增主键，Hibernate可以批量插入
+ * (需要设置hibernate.jdbc.batch_size)。 <br/>
+ * 本包的package-info注册了全局的生成器{@value #NAME}，实体中使用
+ * {@code @Id @GeneratedValue(generator = SnowFlakeIdentifierGenerator.NAME)}即可；
+ * 也可以通过{@code @GenericGenerator}声明并设置{@value #BATCH_SIZE}参数。 <br/>
+ * 每个生成器一次从id来源批量取出batch_size个id。id来源从SessionFactory的配置项{@value #SOURCE}读取，
+ * 需要是{@link IdGenerator}实例(通过{@code HibernatePropertiesCustomizer}设置)，未设置时为{@link SnowFlake#DEFAULT}；
+ * 多个节点时应设置使用不同机器号的来源，启用{@link WorkerIdAllocator}时自动设置
+ *
+ * @author tony
+ */
+public class SnowFlakeIdentifierGenerator implements IdentifierGenerator, Configurable {
+
+    public static final String NAME = "snowflake";
+
+    /**
+     * 每次批量取出的id数量
+     */
+    public static final String BATCH_SIZE = "batch_size";
+
+    /**
+     * SessionFactory配置项，值为{@link IdGenerator}实例
+     */
+    public static final String SOURCE = "little_wheels.snowflake.source";
+
+    private static final int DEFAULT_BATCH_SIZE = 32;
+
+    private IdGenerator source = SnowFlake.DEFAULT;
+
+    private long[] ids = new long[DEFAULT_BATCH_SIZE];
+
+    private int next = ids.length;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Class<?> returnedClass = type.getReturnedClass();
+        if (returnedClass != Long.class && returnedClass != long.class) {
+            throw new MappingException("SnowFlake id of " + params.getProperty(ENTITY_NAME)
+                    + " must be Long, but is " + returnedClass.getName());
+        }
+        Object configured = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SOURCE);
+        if (configured instanceof IdGenerator) {
+            source = (IdGenerator) configured;
+        } else if (null != configured) {
+            throw new MappingException(SOURCE + " must be an IdGenerator, but is " + configured.getClass().getName());
+        }
+        String batchSize = params.getProperty(BATCH_SIZE);
+        if (null != batchSize) {
+            int size;
+            try {
+                size = Integer.parseInt(batchSize.trim());
+            } catch (NumberFormatException ex) {
+                throw new MappingException("Invalid " + BATCH_SIZE + ": " + batchSize, ex);
+            }
+            if (size < 1) {
+                throw new MappingException(BATCH_SIZE + " can't be less than 1");
+            }
+            ids = new long[size];
+            next = size;
+        }
+    }
+
+    @Override
+    public synchronized Serializable generate(SharedSessionContractImplementor session, Object object)
+            throws HibernateException {
+        if (next == ids.length) {
+            source.fill(ids, 0, ids.length);
+            next = 0;
+        }
+        return ids[next++];
+    }
+
+}
@@ -0,0 +1,333 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import io.github.tonybro233.littlewheels.common.IdGenerator;
+import io.github.tonybro233.littlewheels.common.MillisClock;
+import io.github.tonybro233.littlewheels.common.SnowFlake;
+import io.github.tonybro233.littlewheels.common.SnowFlakeLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过数据库租约分配SnowFlake的数据中心号与机器号，多个节点自动扩缩容时不会冲突。 <br/>
+ * 启动时租用一个已过期、已释放或还没有使用过的槽位(通过乐观锁与主键保证只有一个节点成功)，
+ * 之后每隔租期的三分之一续约一次，并保存上次生成id的时间；重新租用的节点从该时间之后开始生成，不会重复生成id。 <br/>
+ * 续约失败(如数据库不可用)时继续生成，直到本地判断租约到期；租约被其它节点占用或到期后拒绝生成，
+ * 抛出{@link IllegalStateException}
+ *
+ * @author tony
+ */
+public final class WorkerIdAllocator implements IdGenerator, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerIdAllocator.class);
+
+    /**
+     * 抢占失败后退避的初始与最大时间，毫秒，每次翻倍并加入随机抖动
+     */
+    private static final long MIN_BACKOFF_MILLIS = 10;
+
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    private final WorkerLeaseRepository repository;
+
+    private final SnowFlakeLayout layout;
+
+    private final MillisClock clock;
+
+    private final long leaseMillis;
+
+    private final long acquireTimeoutNanos;
+
+    private final String owner;
+
+    private final ScheduledExecutorService heartbeat;
+
+    private WorkerLease lease;
+
+    private SnowFlake snowFlake;
+
+    /**
+     * 租约到期时间，到期后拒绝生成
+     */
+    private volatile long expireAt;
+
+    private WorkerIdAllocator(Builder builder) {
+        this.repository = builder.repository;
+        this.layout = builder.layout;
+        this.clock = builder.clock;
+        this.leaseMillis = builder.leaseTime.toMillis();
+        this.acquireTimeoutNanos = builder.acquireTimeout.toNanos();
+        this.owner = builder.owner;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "worker-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder(WorkerLeaseRepository repository) {
+        return new Builder(repository);
+    }
+
+    private void start() {
+        WorkerLease acquired = acquire();
+        synchronized (this) {
+            this.lease = acquired;
+            this.snowFlake = SnowFlake.builder()
+                    .layout(layout)
+                    .datacenterId(acquired.getDatacenterId())
+                    .workerId(acquired.getWorkerId())
+                    .clock(this::leasedMillis)
+                    // 上次生成id的那一毫秒视为序列号已用尽
+                    .lastTimestamp(acquired.getLastTimestamp())
+                    .sequence(layout.getSequenceMask())
+                    .build();
+            this.expireAt = acquired.getExpireAt();
+        }
+        LOGGER.info("Leased snowflake datacenter id {}, worker id {} for {}",
+                acquired.getDatacenterId(), acquired.getWorkerId(), owner);
+        long period = Math.max(1, leaseMillis / 3);
+        heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 依次尝试已过期或已释放的槽位，都被其它节点抢先时占用下一个新槽位。 <br/>
+     * 仍有空闲槽位时退避后重新读取并重试，直到超时；重新读取发现所有槽位都被占用时立即失败
+     */
+    private WorkerLease acquire() {
+        long slots = (layout.getMaxDatacenterId() + 1) << layout.getWorkerIdBits();
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+        long backoff = MIN_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            long now = clock.millis();
+            boolean free = false;
+            for (WorkerLease candidate : repository.findByExpireAtLessThanOrderByIdAsc(now)) {
+                if (candidate.getId() >= slots) {
+                    continue;
+                }
+                free = true;
+                // 原持有者崩溃时，到期前生成的id不会晚于到期时间
+                candidate.setLastTimestamp(Math.max(candidate.getLastTimestamp(), candidate.getExpireAt()));
+                candidate.setOwner(owner);
+                candidate.setExpireAt(now + leaseMillis);
+                try {
+                    return repository.save(candidate);
+                } catch (OptimisticLockingFailureException ex) {
+                    LOGGER.debug("Worker lease {} taken by another node", candidate.getId());
+                }
+            }
+            int next = repository.findTopByOrderByIdDesc().map(last -> last.getId() + 1).orElse(0);
+            if (next < slots) {
+                free = true;
+                WorkerLease created = new WorkerLease(next, next >>> layout.getWorkerIdBits(),
+                        next & layout.getMaxWorkerId());
+                created.setOwner(owner);
+                created.setExpireAt(now + leaseMillis);
+                try {
+                    return repository.save(created);
+                } catch (DataIntegrityViolationException ex) {
+                    LOGGER.debug("Worker lease {} created by another node", next);
+                }
+            }
+            if (!free) {
+                throw new IllegalStateException("No free snowflake worker id, all " + slots + " slots are leased");
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException("Failed to lease a snowflake worker id after " + attempt
+                        + " attempts, free slots were taken by other nodes");
+            }
+            // 随机退避，避免同时启动的节点再次争抢同一个槽位
+            backoff(ThreadLocalRandom.current().nextLong(backoff, backoff * 2));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private static void backoff(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while leasing a snowflake worker id", ex);
+        }
+    }
+
+    /**
+     * 续约并保存上次生成id的时间
+     */
+    synchronized void renew() {
+        if (null == lease || expireAt == 0) {
+            return;
+        }
+        long now = clock.millis();
+        lease.setLastTimestamp(Math.max(lease.getLastTimestamp(), snowFlake.getLastTimestamp()));
+        lease.setExpireAt(now + leaseMillis);
+        try {
+            lease = repository.save(lease);
+            expireAt = lease.getExpireAt();
+        } catch (OptimisticLockingFailureException ex) {
+            LOGGER.error("Snowflake worker lease {} was taken by another node, stop generating ids", lease.getId());
+            expireAt = 0;
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to renew snowflake worker lease {}, will retry", lease.getId(), ex);
+        }
+    }
+
+    /**
+     * SnowFlake的时间来源，每次取时间(包括批量生成中换到下一毫秒)时检查租约，
+     * 因此生成的id的时间都早于租约到期时间，批量生成跨过到期时间时中途停止
+     */
+    private long leasedMillis() {
+        long now = clock.millis();
+        if (now >= expireAt) {
+            throw new IllegalStateException("Snowflake worker lease expired or lost");
+        }
+        return now;
+    }
+
+    @Override
+    public long nextId() {
+        return snowFlake.nextId();
+    }
+
+    @Override
+    public void fill(long[] dst, int off, int len) {
+        snowFlake.fill(dst, off, len);
+    }
+
+    /**
+     * @return 当前的租约
+     */
+    public synchronized WorkerLease getLease() {
+        return lease;
+    }
+
+    public long getDatacenterId() {
+        return snowFlake.getDatacenterId();
+    }
+
+    public long getWorkerId() {
+        return snowFlake.getWorkerId();
+    }
+
+    /**
+     * 停止续约并释放租约，保存上次生成id的时间，之后拒绝生成。 <br/>
+     * 先使之后的取时间失败，再在SnowFlake的锁上读取上次生成id的时间，正在进行的生成结束后才保存
+     */
+    @Override
+    public synchronized void close() {
+        heartbeat.shutdownNow();
+        if (null == lease || expireAt == 0) {
+            return;
+        }
+        expireAt = 0;
+        // getLastTimestamp()与生成使用同一把锁，会等待正在进行的生成结束
+        lease.setLastTimestamp(Math.max(lease.getLastTimestamp(), snowFlake.getLastTimestamp()));
+        lease.setOwner(null);
+        lease.setExpireAt(0);
+        try {
+            lease = repository.save(lease);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to release snowflake worker lease {}", lease.getId(), ex);
+        }
+    }
+
+    public static final class Builder {
+
+        private final WorkerLeaseRepository repository;
+
+        private SnowFlakeLayout layout = SnowFlakeLayout.DEFAULT;
+
+        private MillisClock clock = MillisClock.system();
+
+        private Duration leaseTime = Duration.ofSeconds(30);
+
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        private String owner = ManagementFactory.getRuntimeMXBean().getName();
+
+        private Builder(WorkerLeaseRepository repository) {
+            if (null == repository) {
+                throw new IllegalArgumentException("repository can't be null");
+            }
+            this.repository = repository;
+        }
+
+        /**
+         * id格式，决定槽位数，默认为{@link SnowFlakeLayout#DEFAULT}，共1024个槽位
+         */
+        public Builder layout(SnowFlakeLayout layout) {
+            if (null == layout) {
+                throw new IllegalArgumentException("layout can't be null");
+            }
+            this.layout = layout;
+            return this;
+        }
+
+        /**
+         * 时间来源，默认为{@link MillisClock#system()}
+         */
+        public Builder clock(MillisClock clock) {
+            if (null == clock) {
+                throw new IllegalArgumentException("clock can't be null");
+            }
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * 租期，默认为30秒
+         */
+        public Builder leaseTime(Duration leaseTime) {
+            if (null == leaseTime || leaseTime.toMillis() <= 0) {
+                throw new IllegalArgumentException("leaseTime must be positive");
+            }
+            this.leaseTime = leaseTime;
+            return this;
+        }
+
+        /**
+         * 租用槽位的超时时间，空闲槽位被其它节点抢先时在该时间内退避重试，默认为30秒
+         */
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            if (null == acquireTimeout || acquireTimeout.isNegative()) {
+                throw new IllegalArgumentException("acquireTimeout can't be negative");
+            }
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        /**
+         * 持有者标识，默认为pid@hostname
+         */
+        public Builder owner(String owner) {
+            if (null == owner) {
+                throw new IllegalArgumentException("owner can't be null");
+            }
+            this.owner = owner;
+            return this;
+        }
+
+        /**
+         * 租用槽位并开始续约
+         */
+        public WorkerIdAllocator start() {
+            WorkerIdAllocator allocator = new WorkerIdAllocator(this);
+            try {
+                allocator.start();
+            } catch (RuntimeException ex) {
+                allocator.heartbeat.shutdownNow();
+                throw ex;
+            }
+            return allocator;
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import io.github.tonybro233.littlewheels.common.IdGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+
+/**
+ * 设置little-wheels.snowflake.lease.enabled=true时，注册通过数据库租约分配机器号的{@link WorkerIdAllocator}，
+ * 租期由little-wheels.snowflake.lease.lease-time设置，默认为30s；
+ * 租用槽位的超时时间由little-wheels.snowflake.lease.acquire-timeout设置，默认为30s；
+ * 同时通过SessionFactory配置项{@link SnowFlakeIdentifierGenerator#SOURCE}作为SnowFlake主键的id来源。
+ * 租约的实体与仓库由{@link WorkerLeaseConfiguration}注册
+ *
+ * @author tony
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "little-wheels.snowflake.lease", name = "enabled", havingValue = "true")
+@Import(WorkerLeaseConfiguration.class)
+public class WorkerIdAllocatorConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public WorkerIdAllocator workerIdAllocator(
+            WorkerLeaseRepository repository,
+            @Value("${little-wheels.snowflake.lease.lease-time:30s}") Duration leaseTime,
+            @Value("${little-wheels.snowflake.lease.acquire-timeout:30s}") Duration acquireTimeout) {
+        return WorkerIdAllocator.builder(repository)
+                .leaseTime(leaseTime)
+                .acquireTimeout(acquireTimeout)
+                .start();
+    }
+
+    /**
+     * 租约保存在数据库中，WorkerIdAllocator依赖EntityManagerFactory，不能在EntityManagerFactory之前创建。
+     * 设置的来源在第一次生成主键时才获取WorkerIdAllocator，此时EntityManagerFactory已经创建完成
+     */
+    @Bean
+    public HibernatePropertiesCustomizer snowFlakeSourceCustomizer(ObjectProvider<WorkerIdAllocator> allocator) {
+        return properties -> properties.put(SnowFlakeIdentifierGenerator.SOURCE, new AllocatorSource(allocator));
+    }
+
+    private static final class AllocatorSource implements IdGenerator {
+
+        private final ObjectProvider<WorkerIdAllocator> allocator;
+
+        private AllocatorSource(ObjectProvider<WorkerIdAllocator> allocator) {
+            this.allocator = allocator;
+        }
+
+        @Override
+        public long nextId() {
+            return allocator.getObject().nextId();
+        }
+
+        @Override
+        public void fill(long[] dst, int off, int len) {
+            allocator.getObject().fill(dst, off, len);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * SnowFlake机器号租约，每行对应一个(数据中心号, 机器号)槽位，槽位号为 数据中心号 << 机器号位数 | 机器号 <br/>
+ * 没有标注{@code @Entity}，不会被实体扫描发现：只有启用租约时{@link WorkerLeaseConfiguration}才通过
+ * META-INF/snowflake-worker-lease.orm.xml将其加入持久化单元，未启用时不会创建snowflake_worker_lease表
+ *
+ * @author tony
+ * @see WorkerIdAllocator
+ */
+@Table(name = "snowflake_worker_lease")
+public class WorkerLease {
+
+    /**
+     * 槽位号
+     */
+    @Id
+    private Integer id;
+
+    @Column(name = "datacenter_id", nullable = false)
+    private long datacenterId;
+
+    @Column(name = "worker_id", nullable = false)
+    private long workerId;
+
+    /**
+     * 持有者，释放后为NULL
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    /**
+     * 租约到期时间，毫秒，释放后为0
+     */
+    @Column(name = "expire_at", nullable = false)
+    private long expireAt;
+
+    /**
+     * 持有者上次生成id的时间，毫秒，重新租用时不会生成早于该时间的id
+     */
+    @Column(name = "last_timestamp", nullable = false)
+    private long lastTimestamp;
+
+    @Version
+    private Long version;
+
+    protected WorkerLease() {
+    }
+
+    WorkerLease(int id, long datacenterId, long workerId) {
+        this.id = id;
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(long expireAt) {
+        this.expireAt = expireAt;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerLease[id=" + id + ", datacenterId=" + datacenterId + ", workerId=" + workerId
+                + ", owner=" + owner + ", expireAt=" + expireAt + ", lastTimestamp=" + lastTimestamp + "]";
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import org.hibernate.jpa.AvailableSettings;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 设置little-wheels.snowflake.lease.enabled=true时注册{@link WorkerLease}实体与{@link WorkerLeaseRepository}，
+ * 未启用时两者都不会被扫描，不创建snowflake_worker_lease表
+ *
+ * @author tony
+ * @see WorkerIdAllocatorConfiguration
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "little-wheels.snowflake.lease", name = "enabled", havingValue = "true")
+public class WorkerLeaseConfiguration {
+
+    static final String MAPPING_FILE = "META-INF/snowflake-worker-lease.orm.xml";
+
+    /**
+     * 将WorkerLease的映射文件追加到SessionFactory的映射文件列表
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public HibernatePropertiesCustomizer workerLeaseMappingCustomizer() {
+        return properties -> {
+            List<String> files = new ArrayList<>();
+            Object existing = properties.get(AvailableSettings.XML_FILE_NAMES);
+            if (existing instanceof Collection) {
+                files.addAll((Collection<String>) existing);
+            }
+            files.add(MAPPING_FILE);
+            properties.put(AvailableSettings.XML_FILE_NAMES, files);
+        };
+    }
+
+    /**
+     * 仓库接口标注了{@code @NoRepositoryBean}，在这里创建，事务与异常转换与扫描得到的仓库一致。
+     * 不注册JpaRepositoryFactoryBean类型的Bean，否则SpringBoot不再自动扫描其它仓库
+     */
+    @Bean
+    public WorkerLeaseRepository workerLeaseRepository(EntityManagerFactory entityManagerFactory,
+                                                       ListableBeanFactory beanFactory,
+                                                       ObjectProvider<EntityPathResolver> entityPathResolver) {
+        JpaRepositoryFactoryBean<WorkerLeaseRepository, WorkerLease, Integer> factory =
+                new JpaRepositoryFactoryBean<>(WorkerLeaseRepository.class);
+        factory.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setBeanClassLoader(WorkerLeaseRepository.class.getClassLoader());
+        factory.setBeanFactory(beanFactory);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+}
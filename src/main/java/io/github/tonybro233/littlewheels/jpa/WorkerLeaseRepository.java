@@ -0,0 +1,28 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 不参与仓库扫描，启用租约时由{@link WorkerLeaseConfiguration}注册
+ *
+ * @author tony
+ */
+@NoRepositoryBean
+public interface WorkerLeaseRepository extends JpaRepository<WorkerLease, Integer> {
+
+    /**
+     * @param now 当前时间，毫秒
+     * @return 已过期或已释放的租约，按槽位号排序
+     */
+    List<WorkerLease> findByExpireAtLessThanOrderByIdAsc(long now);
+
+    /**
+     * @return 槽位号最大的租约
+     */
+    Optional<WorkerLease> findTopByOrderByIdDesc();
+
+}
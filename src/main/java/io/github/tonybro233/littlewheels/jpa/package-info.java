@@ -0,0 +1,10 @@
+/**
+ * JPA相关，注册全局的SnowFlake主键生成器{@link io.github.tonybro233.littlewheels.jpa.SnowFlakeIdentifierGenerator#NAME}
+ *
+ * @author tony
+ */
+@GenericGenerator(name = SnowFlakeIdentifierGenerator.NAME,
+        strategy = "io.github.tonybro233.littlewheels.jpa.SnowFlakeIdentifierGenerator")
+package io.github.tonybro233.littlewheels.jpa;
+
+import org.hibernate.annotations.GenericGenerator;
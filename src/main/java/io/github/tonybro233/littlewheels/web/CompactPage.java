@@ -0,0 +1,85 @@
+package io.github.tonybro233.littlewheels.web;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * 精简的分页响应，只包含内容、页码、每页大小、总数(切片没有)与是否第一页、最后一页，
+ * 由{@link CompactPageSerializer}直接写出，不序列化{@link org.springframework.data.domain.Pageable}
+ * 与{@link org.springframework.data.domain.Sort}
+ *
+ * @author tony
+ */
+public final class CompactPage<T> {
+
+    private final List<T> content;
+
+    private final int number;
+
+    private final int size;
+
+    @Nullable
+    private final Long totalElements;
+
+    private final boolean first;
+
+    private final boolean last;
+
+    private CompactPage(List<T> content, int number, int size, @Nullable Long totalElements,
+                        boolean first, boolean last) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.first = first;
+        this.last = last;
+    }
+
+    public static <T> CompactPage<T> of(Page<T> page) {
+        return new CompactPage<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.isFirst(), page.isLast());
+    }
+
+    /**
+     * 切片没有总数
+     */
+    public static <T> CompactPage<T> of(Slice<T> slice) {
+        if (slice instanceof Page) {
+            return of((Page<T>) slice);
+        }
+        return new CompactPage<>(slice.getContent(), slice.getNumber(), slice.getSize(), null,
+                slice.isFirst(), slice.isLast());
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return 总数，切片为null
+     */
+    @Nullable
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public boolean isFirst() {
+        return first;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+}
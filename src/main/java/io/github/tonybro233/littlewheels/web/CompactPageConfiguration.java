@@ -0,0 +1,23 @@
+package io.github.tonybro233.littlewheels.web;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注册{@link CompactPage}的序列化器，SpringBoot会将Module类型的Bean注册到ObjectMapper
+ *
+ * @author tony
+ */
+@Configuration
+public class CompactPageConfiguration {
+
+    @Bean
+    public Module compactPageModule() {
+        SimpleModule module = new SimpleModule("CompactPageModule");
+        module.addSerializer(CompactPage.class, new CompactPageSerializer());
+        return module;
+    }
+
+}
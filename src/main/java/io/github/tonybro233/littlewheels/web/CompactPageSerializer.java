@@ -0,0 +1,58 @@
+package io.github.tonybro233.littlewheels.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * {@link CompactPage}的序列化器，直接向{@link JsonGenerator}写出
+ * {"content":[...],"number":0,"size":10,"totalElements":100,"first":true,"last":false}，
+ * 切片没有总数，不输出"totalElements"。字段名与PageImpl、SliceImpl的JSON一致 <br/>
+ * 内容元素的序列化器按类型查找，连续相同类型的元素复用上一次的序列化器
+ *
+ * @author tony
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CompactPageSerializer extends StdSerializer<CompactPage> {
+
+    public CompactPageSerializer() {
+        super(CompactPage.class);
+    }
+
+    @Override
+    public void serialize(CompactPage page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("content");
+        List<?> content = page.getContent();
+        gen.writeStartArray();
+        Class<?> lastClass = null;
+        JsonSerializer<Object> lastSerializer = null;
+        for (Object element : content) {
+            if (null == element) {
+                provider.defaultSerializeNull(gen);
+                continue;
+            }
+            Class<?> clazz = element.getClass();
+            if (clazz != lastClass) {
+                lastSerializer = provider.findTypedValueSerializer(clazz, true, null);
+                lastClass = clazz;
+            }
+            lastSerializer.serialize(element, gen, provider);
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("number", page.getNumber());
+        gen.writeNumberField("size", page.getSize());
+        Long totalElements = page.getTotalElements();
+        if (null != totalElements) {
+            gen.writeNumberField("totalElements", totalElements);
+        }
+        gen.writeBooleanField("first", page.isFirst());
+        gen.writeBooleanField("last", page.isLast());
+        gen.writeEndObject();
+    }
+
+}
@@ -1,13 +1,28 @@
 package io.github.tonybro233.littlewheels;
 
+import io.github.tonybro233.littlewheels.jpa.WorkerLease;
+import io.github.tonybro233.littlewheels.jpa.WorkerLeaseRepository;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class LittleWheelsApplicationTests {
 
+	@Autowired
+	private ApplicationContext context;
+
 	@Test
 	void contextLoads() {
+		// 未启用SnowFlake机器号租约时不注册租约的实体与仓库
+		assertTrue(context.getBeansOfType(WorkerLeaseRepository.class).isEmpty());
+		assertThrows(IllegalArgumentException.class,
+				() -> context.getBean(EntityManagerFactory.class).getMetamodel().entity(WorkerLease.class));
 	}
 
 }
@@ -0,0 +1,88 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferedIdGeneratorTest {
+
+    private static void awaitSize(BufferedIdGenerator generator, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (generator.getSize() < size) {
+            assertTrue(System.nanoTime() < deadline, "buffer not refilled");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testUnique() throws InterruptedException {
+        try (BufferedIdGenerator generator = BufferedIdGenerator.start(SnowFlake.newInstance(1, 1, 0), 1000, 200)) {
+            assertEquals(1024, generator.getCapacity());
+            awaitSize(generator, 1024);
+
+            Set<Long> all = ConcurrentHashMap.newKeySet();
+            List<Thread> workers = new ArrayList<>();
+            List<Throwable> errors = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                Thread worker = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            long[] batch = (i + seed) % 3 == 0
+                                    ? generator.nextIds(i % 50) : new long[]{generator.nextId()};
+                            for (long id : batch) {
+                                assertTrue(all.add(id));
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        synchronized (errors) {
+                            errors.add(ex);
+                        }
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertTrue(errors.isEmpty(), () -> errors.get(0).toString());
+
+            BufferedIdGenerator.Stats stats = generator.getStats();
+            assertTrue(stats.getRefills() >= 1);
+            // 预先生成的id与直接生成的id合计不少于取出的数量
+            assertTrue(stats.getProduced() + stats.getFallbacks() * 50 >= all.size());
+            assertTrue(stats.getRefillRate() > 0);
+            assertTrue(stats.getFillRatio() >= 0 && stats.getFillRatio() <= 1);
+        }
+    }
+
+    @Test
+    void testFallback() throws InterruptedException {
+        ManualMillisClock clock = new ManualMillisClock(1_600_000_000_000L);
+        SnowFlake snowFlake = SnowFlake.builder().clock(clock).build();
+        BufferedIdGenerator generator = BufferedIdGenerator.start(snowFlake, 16, 4);
+        awaitSize(generator, 16);
+        generator.close();
+
+        // 缓冲中的id按生成顺序取出，取完后直接生成
+        long[] ids = generator.nextIds(20);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, ids[i] & 0xFFF);
+        }
+        assertEquals(20, generator.nextId() & 0xFFF);
+        assertEquals(0, generator.getSize());
+        assertEquals(16, generator.getStats().getProduced());
+        assertEquals(2, generator.getStats().getFallbacks());
+
+        assertThrows(IllegalArgumentException.class, () -> BufferedIdGenerator.start(snowFlake, 16, 16));
+        assertThrows(IllegalArgumentException.class, () -> BufferedIdGenerator.start(null, 16, 4));
+    }
+
+}
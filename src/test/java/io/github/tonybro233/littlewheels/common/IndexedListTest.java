@@ -0,0 +1,105 @@
+package io.github.tonybro233.littlewheels.common;
+
+import io.github.tonybro233.littlewheels.common.PageWrapperTest.TestObj;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedListTest {
+
+    private static final List<Sort> SORTS = Arrays.asList(
+            Sort.unsorted(),
+            Sort.by("val1"),
+            Sort.by(Sort.Order.desc("val1")),
+            Sort.by(Sort.Order.asc("val1").nullsLast(), Sort.Order.desc("name")),
+            Sort.by(Sort.Order.desc("val1").nullsFirst(), Sort.Order.asc("val2")),
+            Sort.by(Sort.Order.desc("name"), Sort.Order.asc("val1")),
+            Sort.by(Sort.Order.asc("name").ignoreCase()),
+            Sort.by(Sort.Order.asc("val2"), Sort.Order.desc("val1")));
+
+    private static TestObj random(Random random, int i) {
+        return new TestObj(random.nextInt(10) == 0 ? null : "name-" + random.nextInt(50),
+                random.nextInt(8) == 0 ? null : random.nextInt(20), i);
+    }
+
+    private static void assertSameAsWrap(IndexedList<TestObj> indexedList) {
+        List<TestObj> snapshot = indexedList.asList();
+        for (Sort sort : SORTS) {
+            for (int pageNumber = 0; pageNumber < 8; pageNumber++) {
+                Pageable pageable = PageRequest.of(pageNumber, 37, sort);
+                assertEquals(PageWrapper.wrap(snapshot, pageable), indexedList.page(pageable), sort.toString());
+            }
+        }
+        assertEquals(PageWrapper.wrap(snapshot, null), indexedList.page(null));
+    }
+
+    @Test
+    void testPage() {
+        Random random = new Random(3);
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            contents.add(random(random, i));
+        }
+        contents.add(null);
+
+        assertSameAsWrap(IndexedList.of(contents, TestObj.class, "val1", "name"));
+        assertSameAsWrap(IndexedList.of(contents, TestObj.class,
+                PageWrapOptions.builder().parallelThreshold(1).build(), "val1", "name"));
+        assertSameAsWrap(IndexedList.of(new ArrayList<>(), TestObj.class, "val1"));
+
+        // 默认达到阈值时并行建立索引
+        List<TestObj> large = new ArrayList<>();
+        for (int i = 0; i < PageWrapOptions.DEFAULT_PARALLEL_THRESHOLD; i++) {
+            large.add(random(random, i));
+        }
+        IndexedList<TestObj> indexedList = IndexedList.of(large, TestObj.class, "val1", "name");
+        for (Sort sort : SORTS) {
+            Pageable pageable = PageRequest.of(100, 37, sort);
+            assertEquals(PageWrapper.wrap(large, pageable), indexedList.page(pageable), sort.toString());
+        }
+        assertThrows(IllegalArgumentException.class, () -> IndexedList.of(contents, TestObj.class, "unknown"));
+    }
+
+    @Test
+    void testUpdate() {
+        Random random = new Random(5);
+        IndexedList<TestObj> indexedList = IndexedList.of(new ArrayList<>(), TestObj.class, "val1", "name");
+        for (int i = 0; i < 150; i++) {
+            indexedList.add(random(random, i));
+        }
+        assertSameAsWrap(indexedList);
+
+        for (int i = 0; i < 100; i++) {
+            int index = random.nextInt(indexedList.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    indexedList.add(random(random, 1000 + i));
+                    break;
+                case 1:
+                    indexedList.set(index, random(random, 2000 + i));
+                    break;
+                case 2:
+                    indexedList.get(index).setVal1(random.nextInt(20));
+                    indexedList.reindex(index);
+                    break;
+                default:
+                    indexedList.remove(index);
+            }
+        }
+        assertSameAsWrap(indexedList);
+
+        Map<String, Long> memory = indexedList.getIndexMemory();
+        assertEquals(Arrays.asList("val1", "name"), new ArrayList<>(memory.keySet()));
+        assertTrue(memory.get("val1") >= 4L * indexedList.size());
+    }
+
+}
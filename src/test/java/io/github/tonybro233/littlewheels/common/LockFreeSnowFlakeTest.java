@@ -0,0 +1,67 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockFreeSnowFlakeTest {
+
+    @Test
+    void testSameFormat() {
+        LockFreeSnowFlake lockFree = LockFreeSnowFlake.newInstance(3, 7);
+        SnowFlake snowFlake = SnowFlake.newInstance(3, 7, 0);
+        long id1 = snowFlake.nextId();
+        long id2 = lockFree.nextId();
+        long id3 = snowFlake.nextId();
+        // 低22位为数据中心号、机器号与序列号，高位为时间戳
+        assertEquals((id1 >>> 12) & 0x3FF, (id2 >>> 12) & 0x3FF);
+        assertTrue(id1 >>> 22 <= id2 >>> 22 && id2 >>> 22 <= id3 >>> 22);
+
+        assertThrows(IllegalArgumentException.class, () -> LockFreeSnowFlake.newInstance(32, 0));
+        assertThrows(IllegalArgumentException.class, () -> LockFreeSnowFlake.newInstance(0, -1));
+    }
+
+    @Test
+    void testConcurrent() throws InterruptedException {
+        IdGenerator generator = LockFreeSnowFlake.newInstance(1, 1);
+        int threads = 8, perThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long last = -1;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        // 单个线程内单调递增
+                        assertTrue(id > last);
+                        last = id;
+                        ids.add(id);
+                    }
+                } catch (Throwable ex) {
+                    synchronized (errors) {
+                        errors.add(ex);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(errors.isEmpty(), () -> errors.get(0).toString());
+        assertEquals(threads * perThread, ids.size());
+    }
+
+}
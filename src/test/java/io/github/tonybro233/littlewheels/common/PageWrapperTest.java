@@ -3,10 +3,24 @@ package io.github.tonybro233.littlewheels.common;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -120,6 +134,319 @@ class PageWrapperTest {
         assertEquals("name-5", pageContent2.get(1).getName());
     }
 
+    @Test
+    void testTopK() {
+        Random random = new Random(42);
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Integer val1 = random.nextInt(10) == 0 ? null : random.nextInt(20);
+            Integer val2 = random.nextInt(10) == 0 ? null : random.nextInt(5);
+            contents.add(new TestObj("name-" + i, val1, val2));
+        }
+
+        Sort.Order order1 = new Sort.Order(Sort.Direction.DESC, "val1", Sort.NullHandling.NULLS_FIRST);
+        Sort.Order order2 = new Sort.Order(Sort.Direction.ASC, "val2", Sort.NullHandling.NATIVE);
+        Sort sort = Sort.by(order1, order2);
+
+        // 全量排序得到的期望结果，只比较第一个属性使得大量元素相等，验证稳定性
+        List<TestObj> expected = new ArrayList<>(contents);
+        Comparator<Integer> val2Order = Comparator.nullsFirst(Comparator.naturalOrder());
+        expected.sort(Comparator.comparing(TestObj::getVal1,
+                Comparator.nullsFirst(Comparator.<Integer>reverseOrder()))
+                .thenComparing(TestObj::getVal2, val2Order));
+
+        for (int pageNumber = 0; pageNumber < 5; pageNumber++) {
+            Page<TestObj> page = PageWrapper.wrap(contents, PageRequest.of(pageNumber, 20, sort));
+            assertEquals(1000, page.getTotalElements());
+            assertEquals(expected.subList(pageNumber * 20, pageNumber * 20 + 20), page.getContent());
+        }
+    }
+
+    @Test
+    void testPrimitive() {
+        List<PrimitiveObj> contents = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            contents.add(new PrimitiveObj(i, 100L - i, i % 3 * 0.5, i % 2 == 0));
+        }
+
+        // 数值比较而不是字符串比较，10 > 9
+        Page<PrimitiveObj> page = PageWrapper.wrap(contents, PageRequest.of(0, 3, Sort.Direction.DESC, "intVal"));
+        assertEquals(11, page.getContent().get(0).getIntVal());
+        assertEquals(10, page.getContent().get(1).getIntVal());
+        assertEquals(9, page.getContent().get(2).getIntVal());
+
+        page = PageWrapper.wrap(contents, PageRequest.of(0, 12, Sort.Direction.ASC, "longVal"));
+        assertEquals(11, page.getContent().get(0).getIntVal());
+
+        page = PageWrapper.wrap(contents, PageRequest.of(0, 12,
+                Sort.by(Sort.Order.desc("doubleVal"), Sort.Order.asc("flag"), Sort.Order.desc("intVal"))));
+        assertEquals(11, page.getContent().get(0).getIntVal());
+        assertEquals(5, page.getContent().get(1).getIntVal());
+        assertEquals(8, page.getContent().get(2).getIntVal());
+        assertEquals(0, page.getContent().get(11).getIntVal());
+    }
+
+    @Test
+    void testExtractKeys() {
+        Random random = new Random(7);
+        String[] names = {"a", "A", "b", "B", "ab", "aB", "Ab", null};
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Integer val1 = random.nextInt(8) == 0 ? null : random.nextInt(10);
+            contents.add(new TestObj(names[random.nextInt(names.length)], val1, i));
+        }
+        contents.add(null);
+
+        PageWrapOptions options = PageWrapOptions.builder().extractKeys(true).build();
+        List<Sort> sorts = new ArrayList<>();
+        sorts.add(Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.desc("val1")));
+        sorts.add(Sort.by(Sort.Order.desc("name").nullsLast(), Sort.Order.asc("val1").nullsFirst()));
+        sorts.add(Sort.by(Sort.Order.desc("val1"), Sort.Order.desc("name").ignoreCase().nullsFirst()));
+
+        for (Sort sort : sorts) {
+            for (int pageNumber : new int[]{0, 1, 10, 20, 25}) {
+                PageRequest pageRequest = PageRequest.of(pageNumber, 20, sort);
+                Page<TestObj> expected = PageWrapper.wrap(contents, pageRequest);
+                Page<TestObj> page = PageWrapper.wrap(contents, pageRequest, options);
+                assertEquals(expected.getContent(), page.getContent());
+                assertEquals(expected.getTotalElements(), page.getTotalElements());
+            }
+        }
+    }
+
+    @Test
+    void testParallel() {
+        Random random = new Random(11);
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Integer val1 = random.nextInt(20) == 0 ? null : random.nextInt(100);
+            contents.add(new TestObj("name-" + random.nextInt(50), val1, i));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PageWrapOptions parallel = PageWrapOptions.builder()
+                    .parallelThreshold(1000).pool(pool).parallelism(3).build();
+            PageWrapOptions parallelKeys = PageWrapOptions.builder()
+                    .parallelThreshold(1000).pool(pool).extractKeys(true).build();
+            Sort sort = Sort.by(Sort.Order.desc("val1").nullsFirst(), Sort.Order.asc("name"));
+            for (int pageNumber : new int[]{300, 600, 999}) {
+                PageRequest pageRequest = PageRequest.of(pageNumber, 20, sort);
+                List<TestObj> expected = PageWrapper.wrap(contents, pageRequest).getContent();
+                assertEquals(expected, PageWrapper.wrap(contents, pageRequest, parallel).getContent());
+                assertEquals(expected, PageWrapper.wrap(contents, pageRequest, parallelKeys).getContent());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStream() {
+        Random random = new Random(3);
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            Integer val1 = random.nextInt(10) == 0 ? null : random.nextInt(30);
+            contents.add(new TestObj("name-" + i, val1, i));
+        }
+        contents.add(0, null);
+
+        List<Sort> sorts = new ArrayList<>();
+        sorts.add(Sort.unsorted());
+        sorts.add(Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("name")));
+        sorts.add(Sort.by(Sort.Order.asc("val1").nullsLast()));
+        for (Sort sort : sorts) {
+            // 包括超过最后一页的情况
+            for (int pageNumber = 0; pageNumber < 13; pageNumber++) {
+                PageRequest pageRequest = PageRequest.of(pageNumber, 8, sort);
+                Page<TestObj> expected = PageWrapper.wrap(contents, pageRequest);
+                Page<TestObj> page = PageWrapper.wrap(contents.stream(), pageRequest);
+                assertEquals(expected.getContent(), page.getContent());
+                assertEquals(expected.getTotalElements(), page.getTotalElements());
+                assertEquals(expected.getNumber(), page.getNumber());
+            }
+        }
+
+        Page<TestObj> all = PageWrapper.wrap(contents.iterator(), null);
+        assertEquals(contents.size(), all.getContent().size());
+        assertEquals(0, PageWrapper.wrap(Stream.<TestObj>empty(), PageRequest.of(2, 10)).getContent().size());
+    }
+
+    @Test
+    void testSlice() {
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            contents.add(new TestObj("name-" + i, i % 7, i));
+        }
+
+        // 不排序时只读取(offset + pageSize + 1)个元素
+        AtomicInteger read = new AtomicInteger();
+        Slice<TestObj> slice = PageWrapper.slice(contents.stream().peek(o -> read.incrementAndGet()),
+                PageRequest.of(1, 10));
+        assertEquals(21, read.get());
+        assertTrue(slice.hasNext());
+        assertEquals(contents.subList(10, 20), slice.getContent());
+
+        slice = PageWrapper.slice(contents, PageRequest.of(2, 10));
+        assertFalse(slice.hasNext());
+        assertEquals(contents.subList(20, 25), slice.getContent());
+
+        // 超过最后一页为空切片
+        slice = PageWrapper.slice(contents.stream(), PageRequest.of(3, 10));
+        assertFalse(slice.hasNext());
+        assertTrue(slice.getContent().isEmpty());
+
+        Sort sort = Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("name"));
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            PageRequest pageRequest = PageRequest.of(pageNumber, 10, sort);
+            Page<TestObj> expected = PageWrapper.wrap(contents, pageRequest);
+            slice = PageWrapper.slice(new HashSet<>(contents).stream()
+                    .sorted(Comparator.comparing(TestObj::getVal2)), pageRequest);
+            assertEquals(expected.getContent(), slice.getContent());
+            assertEquals(expected.hasNext(), slice.hasNext());
+        }
+    }
+
+    @Test
+    void testFilter() {
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            contents.add(new TestObj("name-" + i, i % 7, i));
+        }
+        contents.add(null);
+        Sort sort = Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("val2"));
+        Predicate<TestObj> filter = o -> null != o && o.getVal2() % 3 == 0;
+        List<TestObj> filtered = contents.stream().filter(filter).collect(Collectors.toList());
+
+        for (int pageNumber = 0; pageNumber < 5; pageNumber++) {
+            for (Sort s : Arrays.asList(Sort.unsorted(), sort)) {
+                PageRequest pageRequest = PageRequest.of(pageNumber, 7, s);
+                Page<TestObj> expected = PageWrapper.wrap(filtered, pageRequest);
+                assertEquals(expected, PageWrapper.wrap(contents, filter, pageRequest));
+                assertEquals(expected, PageWrapper.wrap(contents, filter, pageRequest,
+                        PageWrapOptions.builder().parallelThreshold(1).build()));
+            }
+        }
+
+        // 不排序时满足条件的元素足够即停止
+        AtomicInteger tested = new AtomicInteger();
+        Slice<TestObj> slice = PageWrapper.slice(contents, o -> tested.incrementAndGet() > 0 && filter.test(o),
+                PageRequest.of(0, 5));
+        assertEquals(filtered.subList(0, 5), slice.getContent());
+        assertTrue(slice.hasNext());
+        assertEquals(16, tested.get());
+
+        // 按属性过滤，字符串参数转换为属性类型
+        Page<TestObj> page = PageWrapper.wrap(contents,
+                PropertyFilter.between("val2", "10", 19).and(PropertyFilter.in("val1", Arrays.asList("1", "2"))),
+                PageRequest.of(0, 10));
+        assertEquals(Arrays.asList(contents.get(15), contents.get(16)), page.getContent());
+        page = PageWrapper.wrap(contents, PropertyFilter.eq("name", "name-3"), null);
+        assertEquals(Collections.singletonList(contents.get(3)), page.getContent());
+        assertThrows(IllegalArgumentException.class,
+                () -> PageWrapper.wrap(contents, PropertyFilter.eq("unknown", 1), null));
+    }
+
+    @Test
+    void testFilterTime() {
+        List<DatedObj> contents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            contents.add(new DatedObj(LocalDate.of(2020, 1, 1).plusDays(i),
+                    LocalDateTime.of(2020, 1, 1, 0, 0).plusHours(i)));
+        }
+        // 请求参数中的ISO字符串转换为java.time类型
+        Page<DatedObj> page = PageWrapper.wrap(contents,
+                PropertyFilter.between("createTime", "2020-01-01T02:00:00", "2020-01-01T05:00"),
+                PageRequest.of(0, 10));
+        assertEquals(contents.subList(2, 6), page.getContent());
+        page = PageWrapper.wrap(contents, PropertyFilter.between("day", null, "2020-01-03")
+                .and(PropertyFilter.in("day", Arrays.asList("2020-01-02", "2020-01-09"))), null);
+        assertEquals(Collections.singletonList(contents.get(1)), page.getContent());
+        assertThrows(IllegalArgumentException.class,
+                () -> PageWrapper.wrap(contents, PropertyFilter.eq("day", "2020/01/01"), null));
+    }
+
+    @Test
+    void testNestedPath() {
+        Random random = new Random(11);
+        List<NestedObj> contents = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            TestObj obj = random.nextInt(6) == 0 ? null : new TestObj("name-" + random.nextInt(10), null, i);
+            PrimitiveObj primitive = random.nextInt(6) == 0 ? null : new PrimitiveObj(random.nextInt(10), i, i, true);
+            NestedObj parent = random.nextInt(3) == 0 ? null : new NestedObj(null, null, null);
+            contents.add(new NestedObj(obj, primitive, parent));
+        }
+
+        // 任意一级为NULL时按NULL处理
+        Comparator<Integer> nullsLast = Comparator.nullsLast(Comparator.reverseOrder());
+        Comparator<String> nullsFirst = Comparator.nullsFirst(Comparator.naturalOrder());
+        List<NestedObj> expected = new ArrayList<>(contents);
+        expected.sort(Comparator.comparing((NestedObj o) -> null == o.getPrimitive() ? null : o.getPrimitive().getIntVal(), nullsLast)
+                .thenComparing(o -> null == o.getObj() ? null : o.getObj().getName(), nullsFirst)
+                .thenComparing(o -> null == o.getParent() ? null : o.getParent().getObj(), Comparator.nullsFirst((a, b) -> 0)));
+
+        Sort sort = Sort.by(Sort.Order.desc("primitive.intVal").nullsLast(), Sort.Order.asc("obj.name"),
+                Sort.Order.asc("parent.obj.name"), Sort.Order.asc("obj.unknown"));
+        assertEquals(expected, PageWrapper.wrap(contents, PageRequest.of(0, 60, sort)).getContent());
+        assertEquals(expected, PageWrapper.wrap(contents, PageRequest.of(0, 60, sort),
+                PageWrapOptions.builder().extractKeys(true).build()).getContent());
+
+        Page<NestedObj> page = PageWrapper.wrap(contents, PropertyFilter.eq("primitive.intVal", "3"), null);
+        assertFalse(page.isEmpty());
+        page.forEach(o -> assertEquals(3, o.getPrimitive().getIntVal()));
+    }
+
+    @Test
+    void testRandomSort() {
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            contents.add(new TestObj("name-" + i, i, i));
+        }
+
+        Set<TestObj> seen = new HashSet<>();
+        for (int pageNumber = 0; pageNumber < 10; pageNumber++) {
+            PageRequest pageRequest = PageRequest.of(pageNumber, 10, PageWrapper.randomSort(42));
+            Page<TestObj> page = PageWrapper.wrap(contents, pageRequest);
+            // 同一种子各页稳定且不重叠
+            assertEquals(page, PageWrapper.wrap(new HashSet<>(contents).stream()
+                    .sorted(Comparator.comparing(TestObj::getVal2)), pageRequest));
+            assertEquals(page.getContent(), PagedView.of(contents).page(pageRequest).getContent());
+            assertEquals(page.getContent(), IndexedList.of(contents, TestObj.class, "val1")
+                    .page(pageRequest).getContent());
+            Slice<TestObj> slice = PageWrapper.slice(contents, pageRequest);
+            assertEquals(page.getContent(), slice.getContent());
+            assertEquals(pageNumber < 9, slice.hasNext());
+            assertEquals(page.getContent(), PageWrapper.slice(contents, o -> true, pageRequest).getContent());
+            page.forEach(o -> assertTrue(seen.add(o)));
+        }
+        assertEquals(contents.size(), seen.size());
+        assertTrue(PageWrapper.slice(contents, PageRequest.of(10, 10, PageWrapper.randomSort(42))).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> PagedView.of(contents).seek(PageWrapper.randomSort(42), null, 10));
+        assertNotEquals(PageWrapper.wrap(contents, PageRequest.of(0, 10, PageWrapper.randomSort(42))).getContent(),
+                PageWrapper.wrap(contents, PageRequest.of(0, 10, PageWrapper.randomSort(43))).getContent());
+    }
+
+
+    static class DatedObj {
+
+        private final LocalDate day;
+
+        private final LocalDateTime createTime;
+
+        DatedObj(LocalDate day, LocalDateTime createTime) {
+            this.day = day;
+            this.createTime = createTime;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+    }
 
     static class TestObj {
 
@@ -159,4 +486,66 @@ class PageWrapperTest {
             this.val2 = val2;
         }
     }
-}
\ No newline at end of file
+
+    public static class PrimitiveObj {
+
+        private final int intVal;
+
+        private final long longVal;
+
+        private final double doubleVal;
+
+        private final boolean flag;
+
+        public PrimitiveObj(int intVal, long longVal, double doubleVal, boolean flag) {
+            this.intVal = intVal;
+            this.longVal = longVal;
+            this.doubleVal = doubleVal;
+            this.flag = flag;
+        }
+
+        public int getIntVal() {
+            return intVal;
+        }
+
+        public long getLongVal() {
+            return longVal;
+        }
+
+        public double getDoubleVal() {
+            return doubleVal;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+    }
+
+    public static class NestedObj {
+
+        private final TestObj obj;
+
+        private final PrimitiveObj primitive;
+
+        private final NestedObj parent;
+
+        public NestedObj(TestObj obj, PrimitiveObj primitive, NestedObj parent) {
+            this.obj = obj;
+            this.primitive = primitive;
+            this.parent = parent;
+        }
+
+        public TestObj getObj() {
+            return obj;
+        }
+
+        public PrimitiveObj getPrimitive() {
+            return primitive;
+        }
+
+        public NestedObj getParent() {
+            return parent;
+        }
+    }
+
+}
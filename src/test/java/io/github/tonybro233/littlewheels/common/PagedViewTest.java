@@ -0,0 +1,168 @@
+package io.github.tonybro233.littlewheels.common;
+
+import io.github.tonybro233.littlewheels.common.PageWrapperTest.TestObj;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedViewTest {
+
+    private List<TestObj> randomContents(int size, long seed) {
+        Random random = new Random(seed);
+        List<TestObj> contents = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Integer val1 = random.nextInt(10) == 0 ? null : random.nextInt(20);
+            contents.add(new TestObj("name-" + random.nextInt(30), val1, i));
+        }
+        return contents;
+    }
+
+    @Test
+    void testSameAsWrap() {
+        List<TestObj> contents = randomContents(300, 1);
+        PagedView<TestObj> view = PagedView.of(contents);
+
+        List<Sort> sorts = new ArrayList<>();
+        sorts.add(Sort.unsorted());
+        sorts.add(Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("name")));
+        sorts.add(Sort.by(Sort.Order.asc("val1").nullsLast(), Sort.Order.desc("val2")));
+        sorts.add(Sort.by("notExist"));
+        for (Sort sort : sorts) {
+            for (int pageNumber = 0; pageNumber < 35; pageNumber += 3) {
+                PageRequest pageRequest = PageRequest.of(pageNumber, 10, sort);
+                Page<TestObj> expected = PageWrapper.wrap(contents, pageRequest);
+                Page<TestObj> page = view.page(pageRequest);
+                assertEquals(expected.getContent(), page.getContent());
+                assertEquals(expected.getTotalElements(), page.getTotalElements());
+                assertEquals(expected.getNumber(), page.getNumber());
+            }
+        }
+        assertEquals(3, view.getCachedSorts());
+    }
+
+    @Test
+    void testEvictAndRefresh() {
+        List<TestObj> contents = randomContents(50, 2);
+        PagedView<TestObj> view = PagedView.of(contents, 2, PageWrapOptions.DEFAULT);
+
+        view.page(PageRequest.of(0, 10, Sort.by("val1")));
+        view.page(PageRequest.of(0, 10, Sort.by("val2")));
+        view.page(PageRequest.of(0, 10, Sort.by("name")));
+        assertEquals(2, view.getCachedSorts());
+
+        // 创建视图时复制了数据
+        contents.clear();
+        assertEquals(50, view.page(PageRequest.of(0, 10)).getTotalElements());
+
+        List<TestObj> newContents = randomContents(20, 3);
+        view.refresh(newContents);
+        assertEquals(1, view.getVersion());
+        assertEquals(0, view.getCachedSorts());
+        PageRequest pageRequest = PageRequest.of(1, 10, Sort.by("val1"));
+        assertEquals(PageWrapper.wrap(newContents, pageRequest).getContent(), view.page(pageRequest).getContent());
+    }
+
+    @Test
+    void testConcurrentReaders() throws Exception {
+        List<TestObj> contents = randomContents(5000, 4);
+        PagedView<TestObj> view = PagedView.of(contents);
+        Sort sort = Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("name"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Page<TestObj>>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int pageNumber = i;
+                futures.add(executor.submit(() -> view.page(PageRequest.of(pageNumber, 50, sort))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(PageWrapper.wrap(contents, PageRequest.of(i, 50, sort)).getContent(),
+                        futures.get(i).get().getContent());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, view.getCachedSorts());
+    }
+
+    @Test
+    void testSeek() {
+        List<TestObj> contents = randomContents(103, 5);
+        PagedView<TestObj> view = PagedView.of(contents);
+        Sort sort = Sort.by(Sort.Order.desc("val1").nullsFirst(), Sort.Order.asc("name").ignoreCase());
+        List<TestObj> expected = PageWrapper.wrap(contents, PageRequest.of(0, contents.size(), sort)).getContent();
+
+        List<TestObj> walked = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetSlice<TestObj> slice = view.seek(sort, token, 10);
+            walked.addAll(slice.getContent());
+            token = slice.getContinuationToken();
+            assertEquals(null != token, slice.hasNext());
+        } while (null != token);
+        assertEquals(expected, walked);
+
+        assertThrows(IllegalArgumentException.class, () -> view.seek(Sort.by("val2"),
+                view.seek(sort, null, 10).getContinuationToken(), 10));
+    }
+
+    @Test
+    void testSeekTamperedToken() throws IOException {
+        PagedView<TestObj> view = PagedView.of(randomContents(30, 5));
+        Sort sort = Sort.by(Sort.Order.asc("val1"), Sort.Order.asc("name"));
+        // 与游标的编码格式相同，但两个排序键的类型互换：val1为字符串，name为整数
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeInt(sort.toString().hashCode());
+        out.writeInt(2);
+        byte[] text = "name".getBytes(StandardCharsets.UTF_8);
+        out.writeByte(3);
+        out.writeInt(text.length);
+        out.write(text);
+        out.writeByte(1);
+        out.writeLong(42);
+        out.writeInt(0);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> view.seek(sort, token, 10));
+        assertEquals("Invalid continuation token", ex.getMessage());
+    }
+
+    @Test
+    void testSeekAfterRefresh() {
+        List<TestObj> contents = randomContents(40, 6);
+        PagedView<TestObj> view = PagedView.of(contents);
+        // val2唯一，数据变化后游标仍然准确
+        Sort sort = Sort.by(Sort.Order.asc("val1"), Sort.Order.asc("val2"));
+
+        KeysetSlice<TestObj> first = view.seek(sort, null, 10);
+        TestObj last = first.getContent().get(9);
+
+        List<TestObj> newContents = new ArrayList<>(contents);
+        newContents.add(0, new TestObj("new", -1, 100));
+        newContents.removeAll(first.getContent().subList(0, 5));
+        view.refresh(newContents);
+
+        KeysetSlice<TestObj> second = view.seek(sort, first.getContinuationToken(), 10);
+        List<TestObj> expected = PageWrapper.wrap(newContents, PageRequest.of(0, newContents.size(), sort)).getContent();
+        int lastIndex = expected.indexOf(last);
+        assertEquals(expected.subList(lastIndex + 1, lastIndex + 11), second.getContent());
+    }
+
+}
@@ -84,4 +84,23 @@ class RandomSubListUtilsTest {
         return true;
     }
 
-}
\ No newline at end of file
+    @Test
+    void testPermute() {
+        for (int n : new int[]{1, 2, 3, 5, 64, 65, 1000, 4097}) {
+            for (long seed = 0; seed < 5; seed++) {
+                boolean[] seen = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    int index = RandomSubListUtils.permute(seed, n, i);
+                    assertFalse(seen[index], "Permutation should be one-to-one");
+                    seen[index] = true;
+                }
+                assertArrayEquals(RandomSubListUtils.getPermutedIndexes(seed, n, 0, n),
+                        RandomSubListUtils.getPermutedIndexes(seed, n, 0, n));
+            }
+        }
+        assertFalse(Arrays.equals(RandomSubListUtils.getPermutedIndexes(1, 1000, 0, 20),
+                RandomSubListUtils.getPermutedIndexes(2, 1000, 0, 20)));
+        assertThrows(IndexOutOfBoundsException.class, () -> RandomSubListUtils.permute(1, 10, 10));
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.github.tonybro233.littlewheels.common;
+
+import io.github.tonybro233.littlewheels.common.PageWrapperTest.TestObj;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotListTest {
+
+    @Test
+    void testModify() {
+        Random random = new Random(13);
+        List<Integer> expected = new ArrayList<>();
+        SnapshotList<Integer> list = new SnapshotList<>();
+        for (int i = 0; i < 3000; i++) {
+            List<Integer> before = new ArrayList<>(expected);
+            SnapshotList.Snapshot<Integer> snapshot = list.snapshot();
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                expected.add(i);
+                list.add(i);
+            } else if (op < 6) {
+                List<Integer> batch = new ArrayList<>();
+                for (int j = random.nextInt(600) + 1; j > 0; j--) {
+                    batch.add(-j);
+                }
+                expected.addAll(batch);
+                list.addAll(batch);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, -i), list.set(index, -i));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            }
+            // 旧的快照不受影响
+            assertEquals(before, snapshot);
+            assertEquals(snapshot.getVersion() + 1, list.snapshot().getVersion());
+        }
+        assertEquals(expected, list.snapshot());
+        list.clear();
+        assertTrue(list.snapshot().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> list.snapshot().add(1));
+    }
+
+    @Test
+    void testPageWhileWriting() throws InterruptedException {
+        SnapshotList<TestObj> list = new SnapshotList<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            Random random = new Random(17);
+            for (int i = 0; running.get(); i++) {
+                list.add(new TestObj("name-" + i, random.nextInt(50), i));
+                if (i % 3 == 0) {
+                    list.remove(random.nextInt(list.size()));
+                }
+            }
+        });
+        writer.start();
+        try {
+            Sort sort = Sort.by(Sort.Order.desc("val1"), Sort.Order.asc("val2"));
+            for (int i = 0; i < 50; i++) {
+                SnapshotList.Snapshot<TestObj> snapshot = list.snapshot();
+                PageRequest pageRequest = PageRequest.of(i % 5, 20, sort);
+                assertEquals(PageWrapper.wrap(new ArrayList<>(snapshot), pageRequest),
+                        PageWrapper.wrap(snapshot, pageRequest));
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowFlakeTest {
+
+    private static void assertBatch(IdGenerator generator) throws InterruptedException {
+        long[] ids = generator.nextIds(20_000);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        long[] dst = new long[10];
+        generator.fill(dst, 3, 5);
+        assertEquals(0, dst[2]);
+        assertTrue(dst[3] > ids[ids.length - 1]);
+        assertEquals(0, dst[8]);
+        assertThrows(IndexOutOfBoundsException.class, () -> generator.fill(dst, 6, 5));
+
+        // 批量与逐个生成混合时唯一且单个线程内递增
+        Set<Long> all = ConcurrentHashMap.newKeySet();
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    long last = -1;
+                    for (int i = 0; i < 200; i++) {
+                        long[] batch = i % 2 == 0 ? generator.nextIds(i * 10) : new long[]{generator.nextId()};
+                        for (long id : batch) {
+                            assertTrue(id > last);
+                            last = id;
+                            assertTrue(all.add(id));
+                        }
+                    }
+                } catch (Throwable ex) {
+                    synchronized (errors) {
+                        errors.add(ex);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(errors.isEmpty(), () -> errors.get(0).toString());
+        // 每个线程100次逐个生成，批量生成10 * (0 + 2 + ... + 198)个
+        assertEquals(4 * (100 + 99_000), all.size());
+    }
+
+    @Test
+    void testFill() throws InterruptedException {
+        assertBatch(SnowFlake.newInstance(1, 2, 0));
+        assertBatch(LockFreeSnowFlake.newInstance(1, 2));
+    }
+
+    @Test
+    void testClock() {
+        ManualMillisClock clock = new ManualMillisClock(1_600_000_000_000L);
+        List<IdGenerator> generators = Arrays.asList(
+                SnowFlake.builder().workerId(1).clock(clock).build(),
+                LockFreeSnowFlake.newInstance(1, 0, clock),
+                StripedSnowFlake.newInstance(1, 0, 0, clock));
+        for (IdGenerator generator : generators) {
+            clock.set(1_600_000_000_000L);
+            // 同一毫秒内序列号从0递增
+            long[] ids = generator.nextIds(4096);
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(1_600_000_000_000L - 1038834974657L, ids[i] >>> 22);
+                assertEquals(i, ids[i] & 0xFFF);
+            }
+            clock.advance(1);
+            assertEquals(0, generator.nextId() & 0xFFF);
+            clock.advance(-1);
+            assertThrows(RuntimeException.class, generator::nextId);
+        }
+        assertEquals(clock.millis(), SnowFlake.builder().clock(clock).build().getTimestamp());
+    }
+
+    @Test
+    void testClockRollback() throws InterruptedException {
+        long start = 1_600_000_000_000L;
+        ManualMillisClock clock = new ManualMillisClock(start);
+
+        // 借用：回拨后沿用上次的时间，序列号用尽时借用下一毫秒
+        SnowFlake borrow = SnowFlake.builder().clock(clock)
+                .clockRollback(ClockRollbackStrategy.BORROW, 10).build();
+        long last = borrow.nextId();
+        clock.advance(-5);
+        long[] ids = borrow.nextIds(5000);
+        for (long id : ids) {
+            assertTrue(id > last);
+            last = id;
+        }
+        assertEquals(start + 1 - 1038834974657L, last >>> 22);
+        // 两次沿用上次的时间，一次借用下一毫秒
+        assertEquals(3, borrow.getRollbackBorrows());
+        // 超过允许的回拨幅度
+        clock.advance(-20);
+        assertThrows(RuntimeException.class, borrow::nextId);
+        assertEquals(1, borrow.getRollbackFailures());
+        clock.set(start + 2);
+        assertTrue(borrow.nextId() > last);
+
+        // 等待：另一个线程推进时钟后继续
+        clock.set(start);
+        SnowFlake wait = SnowFlake.builder().clock(clock)
+                .clockRollback(ClockRollbackStrategy.WAIT, 10).build();
+        long first = wait.nextId();
+        clock.advance(-3);
+        Thread ticker = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                clock.advance(1);
+            }
+        });
+        ticker.start();
+        long second = wait.nextId();
+        ticker.join();
+        assertTrue(second > first);
+        assertEquals(start - 1038834974657L, second >>> 22);
+        assertEquals(1, wait.getRollbackWaits());
+        assertEquals(0, wait.getRollbackFailures());
+
+        // 默认直接失败
+        SnowFlake failFast = SnowFlake.builder().clock(clock).build();
+        failFast.nextId();
+        clock.advance(-1);
+        assertThrows(RuntimeException.class, failFast::nextId);
+        assertEquals(1, failFast.getRollbackFailures());
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowFlake.builder().clockRollback(ClockRollbackStrategy.WAIT, -1));
+    }
+
+    @Test
+    void testWaitStrategy() throws InterruptedException {
+        for (SequenceWaitStrategy strategy : SequenceWaitStrategy.values()) {
+            assertBatch(SnowFlake.builder().workerId(1).waitStrategy(strategy).build());
+        }
+
+        // 锁外等待：序列号用尽的线程不持有锁
+        ManualMillisClock clock = new ManualMillisClock(1_600_000_000_000L);
+        SnowFlake snowFlake = SnowFlake.builder().clock(clock).waitStrategy(SequenceWaitStrategy.BACKOFF).build();
+        snowFlake.nextIds(4096);
+        long[] result = new long[3];
+        Thread waiter = new Thread(() -> {
+            result[0] = snowFlake.nextId();
+            snowFlake.fill(result, 1, 2);
+        });
+        waiter.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        synchronized (snowFlake) {
+            assertTrue(waiter.isAlive());
+        }
+        clock.advance(1);
+        waiter.join();
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(1_600_000_000_001L - 1038834974657L, result[i] >>> 22);
+            assertEquals(i, result[i] & 0xFFF);
+        }
+    }
+
+    @Test
+    void testLayout() {
+        assertEquals(22, SnowFlakeLayout.DEFAULT.getTimestampShift());
+        assertEquals(1038834974657L + (1L << 41) - 1, SnowFlakeLayout.DEFAULT.getMaxTimestamp());
+        // 41 + 5 + 5 + 16 > 63
+        assertThrows(IllegalArgumentException.class, () -> SnowFlakeLayout.builder().sequenceBits(16).build());
+        assertThrows(IllegalArgumentException.class, () -> SnowFlakeLayout.builder().sequenceBits(0).build());
+        assertThrows(IllegalArgumentException.class, () -> SnowFlakeLayout.builder().workerIdBits(-1).build());
+
+        long epoch = 1_500_000_000_000L;
+        SnowFlakeLayout layout = SnowFlakeLayout.builder().epoch(epoch)
+                .datacenterIdBits(0).workerIdBits(10).sequenceBits(10).build();
+        assertEquals(1023, layout.getMaxWorkerId());
+        assertEquals(0, layout.getMaxDatacenterId());
+        ManualMillisClock clock = new ManualMillisClock(1_600_000_000_000L);
+        List<IdGenerator> generators = Arrays.asList(
+                SnowFlake.builder().layout(layout).workerId(1000).clock(clock).build(),
+                LockFreeSnowFlake.newInstance(1000, 0, layout, clock),
+                StripedSnowFlake.newInstance(1000, 0, 0, layout, clock));
+        for (IdGenerator generator : generators) {
+            clock.set(1_600_000_000_000L);
+            long[] ids = generator.nextIds(1024);
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(1_600_000_000_000L - epoch, ids[i] >>> 20);
+                assertEquals(1000, (ids[i] >>> 10) & 1023);
+                assertEquals(i, ids[i] & 1023);
+            }
+            clock.advance(1);
+            long next = generator.nextId();
+            assertEquals(1_600_000_000_001L - epoch, next >>> 20);
+            assertEquals(0, next & 1023);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowFlake.builder().layout(layout).workerId(1024).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowFlake.builder().layout(layout).sequence(1024).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowFlake.builder().layout(layout).sequence(-2).build());
+        assertEquals(0, SnowFlake.builder().layout(layout).clock(clock).sequence(-1).lastTimestamp(clock.millis())
+                .build().nextId() & 1023);
+        assertThrows(IllegalArgumentException.class,
+                () -> LockFreeSnowFlake.newInstance(0, 1, layout, clock));
+        assertThrows(IllegalArgumentException.class,
+                () -> StripedSnowFlake.newInstance(0, 0, 10, layout, clock));
+    }
+
+    @Test
+    void testClocks() throws InterruptedException {
+        try (CachedMillisClock cached = CachedMillisClock.start()) {
+            long before = System.currentTimeMillis();
+            Thread.sleep(5);
+            assertTrue(cached.millis() >= before);
+            assertTrue(cached.millis() <= System.currentTimeMillis());
+        }
+        MillisClock nano = MillisClock.nanoAnchored();
+        long last = nano.millis();
+        for (int i = 0; i < 1000; i++) {
+            long now = nano.millis();
+            assertTrue(now >= last);
+            last = now;
+        }
+        assertTrue(Math.abs(MillisClock.cached().millis() - System.currentTimeMillis()) < 1000);
+    }
+
+}
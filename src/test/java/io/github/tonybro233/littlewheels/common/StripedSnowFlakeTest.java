@@ -0,0 +1,62 @@
+package io.github.tonybro233.littlewheels.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedSnowFlakeTest {
+
+    @Test
+    void testStripes() throws InterruptedException {
+        StripedSnowFlake generator = StripedSnowFlake.newInstance(3, 7, 2);
+        assertEquals(4, generator.getStripes());
+
+        int threads = 6;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Set<Long> stripes = ConcurrentHashMap.newKeySet();
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    long last = -1;
+                    for (int i = 0; i < 20_000; i++) {
+                        long[] batch = i % 100 == 0 ? generator.nextIds(50) : new long[]{generator.nextId()};
+                        for (long id : batch) {
+                            assertTrue(id > last);
+                            last = id;
+                            assertTrue(ids.add(id));
+                            // 数据中心号与机器号不变，段号为序列号的高2位
+                            assertEquals((7 << 5) | 3, (id >>> 12) & 0x3FF);
+                            stripes.add((id >>> 10) & 0x3);
+                        }
+                    }
+                } catch (Throwable ex) {
+                    synchronized (errors) {
+                        errors.add(ex);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(errors.isEmpty(), () -> errors.get(0).toString());
+        assertEquals(threads * (19_800 + 200 * 50), ids.size());
+        // 线程按轮询分配到各段
+        assertEquals(new HashSet<>(Arrays.asList(0L, 1L, 2L, 3L)), stripes);
+
+        assertThrows(IllegalArgumentException.class, () -> StripedSnowFlake.newInstance(0, 0, 12));
+        assertTrue(StripedSnowFlake.newInstance(0, 0).getStripes() >= 1);
+    }
+
+}
@@ -0,0 +1,30 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+@Entity
+public class SnowFlakeIdEntity {
+
+    @Id
+    @GeneratedValue(generator = SnowFlakeIdentifierGenerator.NAME)
+    private Long id;
+
+    private String name;
+
+    protected SnowFlakeIdEntity() {
+    }
+
+    public SnowFlakeIdEntity(String name) {
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import io.github.tonybro233.littlewheels.common.IdGenerator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class SnowFlakeIdentifierGeneratorTest {
+
+    private static final AtomicLong ISSUED = new AtomicLong();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @TestConfiguration
+    static class SourceConfiguration {
+
+        @Bean
+        HibernatePropertiesCustomizer sourceCustomizer() {
+            IdGenerator source = () -> 1_000_000 + ISSUED.incrementAndGet();
+            return properties -> properties.put(SnowFlakeIdentifierGenerator.SOURCE, source);
+        }
+    }
+
+    @Test
+    void testBatchInsert() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<SnowFlakeIdEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SnowFlakeIdEntity entity = new SnowFlakeIdEntity("entity-" + i);
+            entityManager.persist(entity);
+            // 持久化时就在客户端分配了主键
+            assertNotNull(entity.getId());
+            entities.add(entity);
+        }
+        for (int i = 1; i < entities.size(); i++) {
+            assertTrue(entities.get(i).getId() > entities.get(i - 1).getId());
+        }
+        entityManager.flush();
+        // 100条插入分为两批执行
+        assertEquals(100, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2, () -> statistics.toString());
+
+        entityManager.clear();
+        SnowFlakeIdEntity found = entityManager.find(SnowFlakeIdEntity.class, entities.get(42).getId());
+        assertEquals("entity-42", found.getName());
+    }
+
+    @Test
+    void testSource() {
+        SnowFlakeIdEntity entity = new SnowFlakeIdEntity("sourced");
+        entityManager.persist(entity);
+        // 从SessionFactory配置的来源中一次取出一批
+        assertTrue(entity.getId() > 1_000_000 && entity.getId() <= 1_000_000 + ISSUED.get());
+        assertEquals(0, ISSUED.get() % 32);
+    }
+
+}
@@ -0,0 +1,178 @@
+package io.github.tonybro233.littlewheels.jpa;
+
+import io.github.tonybro233.littlewheels.common.ManualMillisClock;
+import io.github.tonybro233.littlewheels.common.MillisClock;
+import io.github.tonybro233.littlewheels.common.SnowFlakeLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每次操作独立提交，与多个节点并发租用时一样
+ */
+@DataJpaTest(properties = "little-wheels.snowflake.lease.enabled=true")
+@Import(WorkerLeaseConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WorkerIdAllocatorTest {
+
+    private static final long NOW = 1_600_000_000_000L;
+
+    @Autowired
+    private WorkerLeaseRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    private WorkerIdAllocator.Builder builder(ManualMillisClock clock, String owner) {
+        return WorkerIdAllocator.builder(repository).clock(clock).owner(owner).leaseTime(Duration.ofHours(1));
+    }
+
+    @Test
+    void testLease() {
+        ManualMillisClock clock = new ManualMillisClock(NOW);
+        WorkerIdAllocator first = builder(clock, "first").start();
+        WorkerIdAllocator second = builder(clock, "second").start();
+        assertEquals(0, first.getWorkerId());
+        assertEquals(1, second.getWorkerId());
+        assertEquals(0, second.getDatacenterId());
+        assertNotEquals(first.nextId(), second.nextId());
+
+        // 释放后保存上次生成id的时间，重新租用时从该时间之后开始
+        clock.advance(10);
+        long last = first.nextIds(3)[2];
+        first.close();
+        assertThrows(IllegalStateException.class, first::nextId);
+        WorkerLease released = repository.findById(0).orElseThrow(AssertionError::new);
+        assertNull(released.getOwner());
+        assertEquals(NOW + 10, released.getLastTimestamp());
+
+        clock.set(NOW + 5);
+        WorkerIdAllocator third = builder(clock, "third").start();
+        assertEquals(0, third.getWorkerId());
+        assertThrows(RuntimeException.class, third::nextId);
+        clock.set(NOW + 11);
+        assertTrue(third.nextId() > last);
+        second.close();
+        third.close();
+    }
+
+    @Test
+    void testExpire() {
+        ManualMillisClock clock = new ManualMillisClock(NOW);
+        WorkerIdAllocator crashed = builder(clock, "crashed").leaseTime(Duration.ofSeconds(1)).start();
+        crashed.nextId();
+        clock.advance(2000);
+        // 到期后拒绝生成
+        assertThrows(IllegalStateException.class, crashed::nextId);
+
+        WorkerIdAllocator taker = builder(clock, "taker").start();
+        assertEquals(0, taker.getWorkerId());
+        assertEquals(NOW + 1000, taker.getLease().getLastTimestamp());
+        assertEquals("taker", repository.findById(0).map(WorkerLease::getOwner).orElse(null));
+        // 原持有者续约时发现租约已被占用
+        crashed.renew();
+        assertThrows(IllegalStateException.class, crashed::nextId);
+        assertEquals(NOW + 2000, (taker.nextId() >>> 22) + 1038834974657L);
+
+        // 续约保存上次生成id的时间
+        clock.advance(5);
+        taker.nextId();
+        taker.renew();
+        WorkerLease renewed = repository.findById(0).orElseThrow(AssertionError::new);
+        assertEquals(NOW + 2005, renewed.getLastTimestamp());
+        assertEquals(NOW + 2005 + 3_600_000, renewed.getExpireAt());
+        taker.close();
+        crashed.close();
+    }
+
+    @Test
+    void testLeaseBoundary() {
+        // 开始计时后每次读取前进一毫秒
+        AtomicLong time = new AtomicLong(NOW);
+        AtomicBoolean ticking = new AtomicBoolean();
+        MillisClock clock = () -> ticking.get() ? time.getAndIncrement() : time.get();
+        WorkerIdAllocator allocator = WorkerIdAllocator.builder(repository).clock(clock).owner("bounded")
+                .leaseTime(Duration.ofHours(1)).start();
+        long expireAt = allocator.getLease().getExpireAt();
+        time.set(expireAt - 2);
+        ticking.set(true);
+
+        // 每毫秒4096个id，第三毫秒已到期，批量生成中途停止
+        long[] ids = new long[10000];
+        assertThrows(IllegalStateException.class, () -> allocator.fill(ids, 0, ids.length));
+        for (int i = 0; i < 8192; i++) {
+            assertTrue((ids[i] >>> 22) + 1038834974657L < expireAt);
+        }
+        assertEquals(0, ids[8192]);
+        assertThrows(IllegalStateException.class, allocator::nextId);
+
+        allocator.close();
+        WorkerLease released = repository.findById(0).orElseThrow(AssertionError::new);
+        assertEquals(expireAt - 1, released.getLastTimestamp());
+    }
+
+    @Test
+    void testExhausted() {
+        ManualMillisClock clock = new ManualMillisClock(NOW);
+        SnowFlakeLayout layout = SnowFlakeLayout.builder().datacenterIdBits(1).workerIdBits(0).build();
+        WorkerIdAllocator first = builder(clock, "first").layout(layout).start();
+        WorkerIdAllocator second = builder(clock, "second").layout(layout).start();
+        assertEquals(0, first.getDatacenterId());
+        assertEquals(1, second.getDatacenterId());
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> builder(clock, "third").layout(layout).start());
+        assertTrue(ex.getMessage().contains("all 2 slots are leased"));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void testConcurrentStart() throws Exception {
+        ManualMillisClock clock = new ManualMillisClock(NOW);
+        SnowFlakeLayout layout = SnowFlakeLayout.builder().datacenterIdBits(0).workerIdBits(5).build();
+        int nodes = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<WorkerIdAllocator>> futures = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            String owner = "node-" + i;
+            futures.add(executor.submit(() -> {
+                ready.await();
+                return builder(clock, owner).layout(layout).start();
+            }));
+        }
+        ready.countDown();
+        // 同时启动的节点数超过重试次数时也能租满所有槽位
+        List<WorkerIdAllocator> allocators = new ArrayList<>();
+        for (Future<WorkerIdAllocator> future : futures) {
+            allocators.add(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        Set<Long> workerIds = new HashSet<>();
+        allocators.forEach(allocator -> assertTrue(workerIds.add(allocator.getWorkerId())));
+        assertEquals(nodes, workerIds.size());
+        allocators.forEach(WorkerIdAllocator::close);
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.github.tonybro233.littlewheels.web;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.tonybro233.littlewheels.common.PageWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPageSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new CompactPageConfiguration().compactPageModule());
+
+    @Test
+    void testSerialize() throws Exception {
+        List<Object> contents = Arrays.asList("b", "a", null, 3, "c");
+
+        String json = objectMapper.writeValueAsString(
+                CompactPage.of(PageWrapper.wrap(contents, PageRequest.of(0, 4, Sort.by("val")))));
+        assertEquals("{\"content\":[\"b\",\"a\",null,3],\"number\":0,\"size\":4,\"totalElements\":5,\"first\":true,\"last\":false}", json);
+
+        json = objectMapper.writeValueAsString(
+                CompactPage.of(PageWrapper.slice(contents.stream(), PageRequest.of(1, 2))));
+        assertEquals("{\"content\":[null,3],\"number\":1,\"size\":2,\"first\":false,\"last\":false}", json);
+    }
+
+    @Test
+    void testEmpty() throws Exception {
+        String json = objectMapper.writeValueAsString(
+                CompactPage.of(PageWrapper.wrap(Collections.emptyList(), PageRequest.of(0, 10))));
+        assertEquals("{\"content\":[],\"number\":0,\"size\":10,\"totalElements\":0,\"first\":true,\"last\":true}", json);
+
+        json = objectMapper.writeValueAsString(
+                CompactPage.of(PageWrapper.slice(Collections.emptyList(), PageRequest.of(2, 10))));
+        assertEquals("{\"content\":[],\"number\":2,\"size\":10,\"first\":false,\"last\":true}", json);
+    }
+
+    @Test
+    void testNullSort() throws Exception {
+        // 排序信息不会被读取，为NULL时也能输出
+        PageRequest pageable = new PageRequest(1, 2, Sort.unsorted()) {
+            @Override
+            public Sort getSort() {
+                return null;
+            }
+        };
+        Page<String> page = new PageImpl<>(Arrays.asList("c", "d"), pageable, 5);
+        String json = objectMapper.writeValueAsString(CompactPage.of(page));
+        assertEquals("{\"content\":[\"c\",\"d\"],\"number\":1,\"size\":2,\"totalElements\":5,\"first\":false,\"last\":false}", json);
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        List<Integer> contents = Arrays.asList(5, 4, 3, 2, 1);
+        Page<Integer> page = PageWrapper.wrap(contents, PageRequest.of(1, 2, Sort.by("val")));
+        // 作为其它对象的字段时同样使用注册的序列化器
+        String json = objectMapper.writeValueAsString(
+                Collections.singletonMap("page", CompactPage.of(page)));
+
+        Map<String, Map<String, Object>> read = objectMapper.readValue(json,
+                new TypeReference<Map<String, Map<String, Object>>>() {
+                });
+        Map<String, Object> compact = read.get("page");
+        assertEquals(page.getContent(), compact.get("content"));
+        assertEquals(page.getNumber(), compact.get("number"));
+        assertEquals(page.getSize(), compact.get("size"));
+        assertEquals(5, compact.get("totalElements"));
+        assertFalse(compact.containsKey("pageable"));
+        assertFalse(compact.containsKey("sort"));
+        // 输出的字段与PageImpl、SliceImpl的JSON同名同值
+        assertSameFields(compact, page);
+        Slice<Integer> slice = PageWrapper.slice(contents, PageRequest.of(2, 2));
+        assertSameFields(objectMapper.readValue(objectMapper.writeValueAsString(CompactPage.of(slice)),
+                new TypeReference<Map<String, Object>>() {
+                }), slice);
+
+        JsonNode tree = objectMapper.valueToTree(CompactPage.of(page));
+        assertEquals(json, objectMapper.writeValueAsString(Collections.singletonMap("page", tree)));
+    }
+
+    private void assertSameFields(Map<String, Object> compact, Slice<?> slice) throws Exception {
+        ObjectMapper plain = new ObjectMapper();
+        Map<String, Object> full = plain.readValue(plain.writeValueAsString(slice),
+                new TypeReference<Map<String, Object>>() {
+                });
+        compact.forEach((field, value) -> assertEquals(full.get(field), value, field));
+    }
+
+}